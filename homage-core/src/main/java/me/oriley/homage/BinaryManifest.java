@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reader for manifests precompiled by the {@code gradle/homage.gradle} build script. All values are big-endian:
+ *
+ * <pre>
+ * int    magic ('HMGB')
+ * int    version
+ * int    library count
+ * int    string count
+ * int[]  string offsets, relative to the start of the string data
+ * int[]  library records, FIELD_COUNT string indices per library (-1 for a missing value)
+ * byte[] string data, each entry an unsigned short length followed by modified UTF-8 (see DataInput.readUTF)
+ * </pre>
+ */
+final class BinaryManifest {
+
+    static final int MAGIC = 0x484D4742;
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 16;
+
+    // Field order within each record, matching the Library constructor
+    static final int FIELD_NAME = 0;
+    static final int FIELD_ICON = 1;
+    static final int FIELD_VERSION = 2;
+    static final int FIELD_DESCRIPTION = 3;
+    static final int FIELD_YEAR = 4;
+    static final int FIELD_OWNER = 5;
+    static final int FIELD_OWNER_URL = 6;
+    static final int FIELD_URL = 7;
+    static final int FIELD_LICENSE = 8;
+    static final int FIELD_COUNT = 9;
+
+    static final int NO_STRING = -1;
+
+
+    private BinaryManifest() {
+        throw new IllegalAccessError("no instances");
+    }
+
+
+    /**
+     * Checks for the binary magic without consuming any bytes. The stream must support mark/reset.
+     */
+    static boolean isBinaryManifest(@NonNull InputStream stream) throws IOException {
+        stream.mark(4);
+        try {
+            int magic = 0;
+            for (int i = 0; i < 4; i++) {
+                int b = stream.read();
+                if (b < 0) {
+                    return false;
+                }
+                magic = (magic << 8) | b;
+            }
+            return magic == MAGIC;
+        } finally {
+            stream.reset();
+        }
+    }
+
+    @NonNull
+    static Library[] read(@NonNull InputStream stream) throws IOException {
+        DataInputStream input = new DataInputStream(stream);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a binary manifest");
+        }
+
+        int version = input.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary manifest version: " + version);
+        }
+
+        int libraryCount = input.readInt();
+        int stringCount = input.readInt();
+        if (libraryCount < 0 || stringCount < 0) {
+            throw new IOException("Corrupt binary manifest header");
+        }
+
+        // Offsets are only needed for random access, strings are stored sequentially
+        skipFully(input, stringCount * 4L);
+
+        int[] records = new int[libraryCount * FIELD_COUNT];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = input.readInt();
+        }
+
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            strings[i] = input.readUTF();
+        }
+
+        Library[] libraries = new Library[libraryCount];
+        for (int i = 0; i < libraryCount; i++) {
+            int offset = i * FIELD_COUNT;
+            libraries[i] = new Library(
+                    getString(strings, records[offset + FIELD_NAME]),
+                    getString(strings, records[offset + FIELD_ICON]),
+                    getString(strings, records[offset + FIELD_VERSION]),
+                    getString(strings, records[offset + FIELD_DESCRIPTION]),
+                    getString(strings, records[offset + FIELD_YEAR]),
+                    getString(strings, records[offset + FIELD_OWNER]),
+                    getString(strings, records[offset + FIELD_OWNER_URL]),
+                    getString(strings, records[offset + FIELD_URL]),
+                    getString(strings, records[offset + FIELD_LICENSE]));
+        }
+        return libraries;
+    }
+
+    @Nullable
+    private static String getString(@NonNull String[] strings, int index) throws IOException {
+        if (index == NO_STRING) {
+            return null;
+        } else if (index < 0 || index >= strings.length) {
+            throw new IOException("Invalid string index: " + index);
+        }
+        return strings[index];
+    }
+
+    private static void skipFully(@NonNull DataInputStream input, long count) throws IOException {
+        while (count > 0) {
+            long skipped = input.skip(count);
+            if (skipped <= 0) {
+                // skip() may legitimately return 0, fall back to read() to detect EOF
+                input.readByte();
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static me.oriley.homage.utils.IOUtils.closeQuietly;
+
+/**
+ * Snapshot of a resolved library list, stored in the cache directory so later launches can skip reading manifests and
+ * looking up icons. Snapshots are only used by the same install of the application and the same list of sources.
+ *
+ * <pre>
+ * int    magic ('HMGC')
+ * int    version
+ * UTF    cache key
+ * int    library count
+ * per library:
+ *   BinaryManifest.FIELD_COUNT optional strings, in manifest field order
+ *   int    icon resource
+ *   optional string icon uri
+ * </pre>
+ *
+ * Optional strings are a boolean presence flag, followed by the value as modified UTF-8 when present.
+ */
+final class CatalogCache {
+
+    private static final String TAG = CatalogCache.class.getSimpleName();
+
+    static final int MAGIC = 0x484D4743;
+    static final int VERSION = 1;
+
+    private static final String FILE_PREFIX = "homage-catalog-";
+
+    // Writes are serialised, so refreshes sharing sources don't race on a snapshot, and its thread exits when idle
+    @NonNull
+    private static final ThreadPoolExecutor sWriteExecutor = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>());
+
+    @NonNull
+    private final File mFile;
+
+    @NonNull
+    private final String mKey;
+
+
+    private CatalogCache(@NonNull File file, @NonNull String key) {
+        mFile = file;
+        mKey = key;
+    }
+
+
+    /**
+     * @return the cache for these sources, or null if the application's package info is unavailable
+     */
+    @Nullable
+    static CatalogCache create(@NonNull Context context, @NonNull String sources) {
+        String key = createInstallKey(context, sources);
+        File dir = context.getCacheDir();
+        if (key == null || dir == null) {
+            return null;
+        }
+
+        // The file is only named after the sources, so a new install overwrites the previous snapshot
+        return new CatalogCache(new File(dir, FILE_PREFIX + Integer.toHexString(sources.hashCode())), key);
+    }
+
+    /**
+     * Identifies the sources as resolved by this install of the application in the current locale, as resource IDs and
+     * icons may change whenever it is updated, and raw resources may be localised.
+     *
+     * @return the key, or null if the application's package info is unavailable
+     */
+    @Nullable
+    static String createInstallKey(@NonNull Context context, @NonNull String sources) {
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            Locale locale = context.getResources().getConfiguration().locale;
+            return info.lastUpdateTime + ":" + info.versionCode + ":" + locale + ":" + sources;
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.w(TAG, "Package info unavailable, not caching libraries", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the cached libraries with icons resolved and licenses unset, or null if there is no valid snapshot
+     */
+    @WorkerThread
+    @Nullable
+    List<Library> read() {
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)));
+            if (input.readInt() != MAGIC || input.readInt() != VERSION || !mKey.equals(input.readUTF())) {
+                return null;
+            }
+
+            int count = input.readInt();
+            if (count <= 0) {
+                return null;
+            }
+
+            List<Library> libraries = new ArrayList<>(count);
+            String[] fields = new String[BinaryManifest.FIELD_COUNT];
+            for (int i = 0; i < count; i++) {
+                for (int f = 0; f < fields.length; f++) {
+                    fields[f] = readOptionalString(input);
+                }
+
+                Library library = new Library(
+                        fields[BinaryManifest.FIELD_NAME],
+                        fields[BinaryManifest.FIELD_ICON],
+                        fields[BinaryManifest.FIELD_VERSION],
+                        fields[BinaryManifest.FIELD_DESCRIPTION],
+                        fields[BinaryManifest.FIELD_YEAR],
+                        fields[BinaryManifest.FIELD_OWNER],
+                        fields[BinaryManifest.FIELD_OWNER_URL],
+                        fields[BinaryManifest.FIELD_URL],
+                        fields[BinaryManifest.FIELD_LICENSE]);
+                library.setIconResource(input.readInt());
+                library.setIconUri(readOptionalString(input));
+                libraries.add(library);
+            }
+            return libraries;
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to read cached libraries", e);
+            return null;
+        } finally {
+            closeQuietly(input);
+        }
+    }
+
+    /**
+     * Writes the snapshot in the background, after any earlier writes.
+     */
+    void writeAsync(@NonNull final List<Library> libraries) {
+        sWriteExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(libraries);
+            }
+        });
+    }
+
+    /**
+     * Replaces the snapshot with the given resolved libraries. The previous snapshot is kept if writing fails.
+     */
+    @WorkerThread
+    void write(@NonNull List<Library> libraries) {
+        File temp = null;
+        DataOutputStream output = null;
+        boolean written = false;
+        try {
+            // Unique per write, as instances sharing sources may refresh at the same time
+            temp = File.createTempFile(mFile.getName(), null, mFile.getParentFile());
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeUTF(mKey);
+            output.writeInt(libraries.size());
+            for (Library library : libraries) {
+                writeOptionalString(output, library.getLibraryName());
+                writeOptionalString(output, library.getLibraryIcon());
+                writeOptionalString(output, library.getLibraryVersion());
+                writeOptionalString(output, library.getLibraryDescription());
+                writeOptionalString(output, library.getLibraryYear());
+                writeOptionalString(output, library.getLibraryOwner());
+                writeOptionalString(output, library.getLibraryOwnerUrl());
+                writeOptionalString(output, library.getLibraryUrl());
+                writeOptionalString(output, library.getLicenseCode());
+                output.writeInt(library.getIconResource());
+                writeOptionalString(output, library.getIconUri());
+            }
+            output.close();
+            output = null;
+            written = temp.renameTo(mFile);
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to cache libraries", e);
+        } finally {
+            closeQuietly(output);
+            if (!written && temp != null) {
+                //noinspection ResultOfMethodCallIgnored
+                temp.delete();
+            }
+        }
+    }
+
+    @Nullable
+    private static String readOptionalString(@NonNull DataInputStream input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    private static void writeOptionalString(@NonNull DataOutputStream output, @Nullable String value)
+            throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+}
@@ -17,30 +17,38 @@
 package me.oriley.homage;
 
 import android.content.Context;
+import android.content.res.AssetManager;
 import android.content.res.Resources;
+import android.os.AsyncTask;
+import android.support.annotation.MainThread;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.RawRes;
 import android.support.annotation.StringRes;
-import android.text.Html;
+import android.support.annotation.VisibleForTesting;
+import android.support.annotation.WorkerThread;
 import android.text.Spanned;
 import android.text.SpannedString;
 import android.text.TextUtils;
+import android.util.JsonReader;
 import android.util.Log;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import me.oriley.homage.utils.ResourceUtils.ResourceType;
 
 import static me.oriley.homage.Homage.CoreLicense.*;
+import static me.oriley.homage.utils.IOUtils.UTF_8;
 import static me.oriley.homage.utils.IOUtils.closeQuietly;
 import static me.oriley.homage.utils.ResourceUtils.getResourceId;
 
@@ -68,46 +76,19 @@ public final class Homage {
         NONE,
     }
 
-    private enum Legacy {
-        CC0(CC0_1_0),
-        CC3(CC_3_0),
-        LGPL3(LGPL_3_0),
-        APACHE2(APACHE_2_0),
-        BSD2(BSD_2),
-        BSD3(BSD_3);
-
-        @NonNull
-        private final CoreLicense mLicense;
-
-        Legacy(@NonNull CoreLicense license) {
-            mLicense = license;
-        }
-
-        @NonNull
-        CoreLicense getCoreLicense() {
-            return mLicense;
-        }
+    public interface Callback {
 
-        @Nullable
-        static String translateLegacyCode(@NonNull String code) {
-            for (Legacy legacy : Legacy.values()) {
-                if (legacy.name().equalsIgnoreCase(code)) {
-                    return legacy.mLicense.name();
-                }
-            }
-
-            // Not found
-            return null;
-        }
+        @MainThread
+        void onLibrariesRefreshed(@NonNull List<Library> libraries);
     }
 
     private static final String TAG = Homage.class.getSimpleName();
 
     @NonNull
-    private final Map<String, License> mLicenses = new HashMap<>();
+    private final LicenseRegistry mLicenses;
 
     @NonNull
-    private List<Library> mLibraries = Collections.emptyList();
+    private volatile List<Library> mLibraries = Collections.emptyList();
 
     @NonNull
     private final Context mContext;
@@ -119,20 +100,22 @@ public final class Homage {
     @RawRes
     private int[] mResourceIds;
 
+    @Nullable
+    private volatile Executor mSourceExecutor;
+
+    @Nullable
+    private volatile IconResolver mIconResolver;
+
+    private volatile boolean mCatalogCacheEnabled;
+
+    @Nullable
+    private volatile LibraryIndex mSearchIndex;
+
 
     // Application context so don't stress :)
     private Homage(@NonNull Context context) {
         mContext = context.getApplicationContext();
-
-        addLicense(APACHE_2_0, R.string.homage_license_apache_2_0_name, R.string.homage_license_apache_2_0_website, R.string.homage_license_apache_2_0_description);
-        addLicense(BSD_2, R.string.homage_license_bsd_2_name, R.string.homage_license_bsd_2_website, R.string.homage_license_bsd_2_description);
-        addLicense(BSD_3, R.string.homage_license_bsd_3_name, R.string.homage_license_bsd_3_website, R.string.homage_license_bsd_3_description);
-        addLicense(CC0_1_0, R.string.homage_license_cc0_1_0_name, R.string.homage_license_cc0_1_0_website, R.string.homage_license_cc0_1_0_description);
-        addLicense(CC_3_0, R.string.homage_license_cc_3_0_name, R.string.homage_license_cc_3_0_website, R.string.homage_license_cc_3_0_description);
-        addLicense(LGPL_3_0, R.string.homage_license_lgpl_3_0_name, R.string.homage_license_lgpl_3_0_website, R.string.homage_license_lgpl_3_0_description);
-        addLicense(MIT, R.string.homage_license_mit_name, R.string.homage_license_mit_website, R.string.homage_license_mit_description);
-        addLicense(UNRECOGNISED, R.string.homage_empty_license, R.string.homage_empty_license, R.string.homage_unrecognised_license);
-        addLicense(NONE, R.string.homage_empty_license, R.string.homage_empty_license, R.string.homage_empty_license);
+        mLicenses = LicenseRegistry.get(mContext);
     }
 
     public Homage(@NonNull Context context, @NonNull @RawRes int... licensesResourceIds) {
@@ -147,105 +130,241 @@ public final class Homage {
 
 
     public void refreshLibraries() {
-        List<Library> newLibraries = new ArrayList<>();
-        if (mAssetPaths != null) {
-            for (String assetPath : mAssetPaths) {
-                if (TextUtils.isEmpty(assetPath)) {
-                    Log.w(TAG, "Empty asset path passed, ignoring");
-                    continue;
-                }
+        List<Library> newLibraries = loadLibraries();
+        if (newLibraries != null) {
+            mLibraries = newLibraries;
+        }
+    }
+
+    /**
+     * Loads and resolves all libraries on the given {@link Executor}, then publishes the result and notifies the
+     * callback on the main thread. Any custom licenses must be added before calling this method.
+     *
+     * @return a task which can be used to cancel the refresh, e.g. when the host view is destroyed
+     */
+    @NonNull
+    public RefreshTask refreshLibrariesAsync(@NonNull Executor executor, @NonNull Callback callback) {
+        RefreshTask task = new RefreshTask(this, callback);
+        executor.execute(task.getRunnable());
+        return task;
+    }
+
+    @NonNull
+    public RefreshTask refreshLibrariesAsync(@NonNull Callback callback) {
+        return refreshLibrariesAsync(AsyncTask.THREAD_POOL_EXECUTOR, callback);
+    }
 
-                Library[] libs = getLibraryArray(mContext, assetPath);
-                if (libs != null) {
-                    Collections.addAll(newLibraries, libs);
+    /**
+     * Sets an executor used to read and parse each asset path or raw resource in parallel. Libraries are always merged
+     * in the order the sources were passed to the constructor. Pass {@code null} to load sources sequentially on the
+     * refreshing thread (the default).
+     */
+    public void setSourceExecutor(@Nullable Executor executor) {
+        mSourceExecutor = executor;
+    }
+
+    /**
+     * Sets a resolver used to look up library icons without reflection, such as the {@code HomageIcons} class
+     * generated by {@code gradle/homage.gradle}. Icons it doesn't know about are still looked up reflectively.
+     */
+    public void setIconResolver(@Nullable IconResolver iconResolver) {
+        mIconResolver = iconResolver;
+    }
+
+    /**
+     * Caches resolved libraries on disk, so later launches of the same install can skip reading manifests and looking
+     * up icons. Disabled by default. The snapshot copies every library onto the heap when read, so it is only written
+     * for libraries which aren't already mapped from binary manifests. Licenses are still matched on every refresh, so
+     * custom licenses must be added as usual.
+     */
+    public void setCatalogCacheEnabled(boolean enabled) {
+        mCatalogCacheEnabled = enabled;
+    }
+
+    void setLibraries(@NonNull List<Library> libraries) {
+        mLibraries = libraries;
+    }
+
+    @Nullable
+    List<Library> loadLibraries() {
+        final CatalogCache cache = mCatalogCacheEnabled ? CatalogCache.create(mContext, getSourceKey()) : null;
+        if (cache != null) {
+            List<Library> cached = cache.read();
+            if (cached != null) {
+                for (Library library : cached) {
+                    resolveLicense(library);
                 }
+                return Collections.unmodifiableList(cached);
             }
         }
-        if (mResourceIds != null) {
-            for (int resourceId : mResourceIds) {
-                if (resourceId <= 0) {
-                    Log.w(TAG, "Invalid resource ID passed: " + resourceId + ", ignoring");
-                    continue;
-                }
 
-                Library[] libs = getLibraryArray(mContext, resourceId);
-                if (libs != null) {
-                    Collections.addAll(newLibraries, libs);
+        final List<Library> newLibraries = new ArrayList<>();
+        List<Callable<Library[]>> loaders = createLoaders();
+
+        Executor sourceExecutor = mSourceExecutor;
+        if (sourceExecutor == null || loaders.size() <= 1) {
+            for (Callable<Library[]> loader : loaders) {
+                addLibraries(newLibraries, runLoader(loader));
+            }
+        } else {
+            List<FutureTask<Library[]>> tasks = new ArrayList<>(loaders.size());
+            for (Callable<Library[]> loader : loaders) {
+                FutureTask<Library[]> task = new FutureTask<>(loader);
+                tasks.add(task);
+                try {
+                    sourceExecutor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    // Will be run on this thread when collected
                 }
             }
+
+            // Collect in source order so the merged list is deterministic
+            for (FutureTask<Library[]> task : tasks) {
+                addLibraries(newLibraries, awaitLoader(task));
+            }
         }
 
         if (newLibraries.isEmpty()) {
             Log.w(TAG, "No libraries found");
-            return;
+            return null;
         }
 
+        IconResolver iconResolver = mIconResolver;
         for (Library library : newLibraries) {
-            String licenseCode = library.getLicenseCode();
+            resolveLicense(library);
+            resolveIcon(library, iconResolver);
+        }
 
-            License license;
-            if (!TextUtils.isEmpty(licenseCode)) {
-                license = getLicense(licenseCode);
-                if (license == null) {
-                    license = mLicenses.get(UNRECOGNISED.name());
-                }
-            } else {
-                license = mLicenses.get(NONE.name());
-            }
-            library.setLicense(license);
+        if (cache != null && !allMapped(newLibraries)) {
+            // Not needed for this refresh, so don't hold up the caller
+            cache.writeAsync(newLibraries);
+        }
 
-            String icon = library.getLibraryIcon();
-            if (!TextUtils.isEmpty(icon)) {
-                if (icon.contains("://")) {
-                    library.setIconUri(icon);
-                } else {
-                    int iconRes = getResourceId(mContext, icon, ResourceType.DRAWABLE);
-                    if (iconRes <= 0) {
-                        iconRes = getResourceId(mContext, icon, ResourceType.MIPMAP);
-                    }
-                    if (iconRes <= 0) {
-                        iconRes = android.R.drawable.sym_def_app_icon;
-                    }
-                    library.setIconResource(iconRes);
-                }
+        return Collections.unmodifiableList(newLibraries);
+    }
+
+    /**
+     * Mapped libraries are read straight from their manifests, so a snapshot of them would only be slower.
+     */
+    private static boolean allMapped(@NonNull List<Library> libraries) {
+        for (int i = 0, size = libraries.size(); i < size; i++) {
+            if (!libraries.get(i).isMapped()) {
+                return false;
             }
         }
-
-        mLibraries = Collections.unmodifiableList(newLibraries);
+        return true;
     }
 
-    @NonNull
-    public List<Library> getLibraries() {
-        return mLibraries;
+    void resolveLicense(@NonNull Library library) {
+        String licenseCode = library.getLicenseCode();
+
+        License license;
+        if (!TextUtils.isEmpty(licenseCode)) {
+            license = mLicenses.findLicense(licenseCode);
+            if (license == null) {
+                license = mLicenses.getLicense(UNRECOGNISED);
+            }
+        } else {
+            license = mLicenses.getLicense(NONE);
+        }
+        library.setLicense(license);
     }
 
-    @Nullable
-    private License getLicense(@NonNull String code) {
-        for (String entryCode : mLicenses.keySet()) {
-            if (code.equalsIgnoreCase(entryCode)) {
-                return mLicenses.get(entryCode);
+    void resolveIcon(@NonNull Library library, @Nullable IconResolver iconResolver) {
+        String icon = library.getLibraryIcon();
+        if (TextUtils.isEmpty(icon)) {
+            return;
+        }
+
+        if (icon.contains("://")) {
+            library.setIconUri(icon);
+        } else {
+            int iconRes = iconResolver != null ? iconResolver.getIconResource(icon) : 0;
+            if (iconRes <= 0) {
+                // Not generated (e.g. a drawable from a dependency), fall back to reflection
+                iconRes = getResourceId(mContext, icon, ResourceType.DRAWABLE);
+            }
+            if (iconRes <= 0) {
+                iconRes = getResourceId(mContext, icon, ResourceType.MIPMAP);
+            }
+            if (iconRes <= 0) {
+                iconRes = android.R.drawable.sym_def_app_icon;
             }
+            library.setIconResource(iconRes);
         }
+    }
 
-        String translatedCode = Legacy.translateLegacyCode(code);
-        if (!TextUtils.isEmpty(translatedCode)) {
-            // Try legacy migrated code
-            return getLicense(translatedCode);
+    /**
+     * Identifies the manifests this instance loads from, in order.
+     */
+    @NonNull
+    String getSourceKey() {
+        StringBuilder builder = new StringBuilder();
+        if (mAssetPaths != null) {
+            builder.append("assets");
+            for (String assetPath : mAssetPaths) {
+                builder.append(':').append(assetPath);
+            }
         }
+        if (mResourceIds != null) {
+            builder.append("raw");
+            for (int resourceId : mResourceIds) {
+                builder.append(':').append(resourceId);
+            }
+        }
+        return builder.toString();
+    }
 
-        // Not found
-        return null;
+    /**
+     * Opens a catalog which stores this instance's libraries in a database rather than in memory, for lists too large
+     * to hold at once. The manifests are only imported the first time, or after the application is updated. Any
+     * custom licenses must be added before calling this method.
+     *
+     * @return the catalog, which should be closed when no longer needed
+     */
+    @WorkerThread
+    @NonNull
+    public HomageCatalog openCatalog() {
+        return HomageCatalog.open(this);
+    }
+
+    @NonNull
+    Context getContext() {
+        return mContext;
+    }
+
+    @Nullable
+    IconResolver getIconResolver() {
+        return mIconResolver;
+    }
+
+    @NonNull
+    public List<Library> getLibraries() {
+        return mLibraries;
     }
 
-    private void addLicense(@NonNull CoreLicense coreLicense, @StringRes int nameRes, @StringRes int urlRes, @StringRes int descRes) {
-        addLicense(coreLicense.name(), nameRes, urlRes, descRes);
+    /**
+     * Returns a search index over the current libraries. It is built the first time this is called after each
+     * refresh, so call it from a background thread.
+     */
+    @WorkerThread
+    @NonNull
+    public LibraryIndex getSearchIndex() {
+        List<Library> libraries = mLibraries;
+        LibraryIndex index = mSearchIndex;
+        if (index == null || index.getLibraries() != libraries) {
+            index = LibraryIndex.build(libraries);
+            mSearchIndex = index;
+        }
+        return index;
     }
 
+    /**
+     * Adds a license definition which can be referenced by key from your manifests. Licenses are shared by all
+     * {@link Homage} instances in the process, so they only need to be added once.
+     */
     public void addLicense(@NonNull String key, @StringRes int nameRes, @StringRes int urlRes, @StringRes int descRes) {
-        String name = mContext.getString(nameRes);
-        String url = mContext.getString(urlRes);
-        Spanned description = Html.fromHtml(mContext.getString(descRes));
-        addLicense(key, name, url, description);
+        mLicenses.addLicense(key, nameRes, urlRes, descRes);
     }
 
     public void addLicense(@NonNull String key, @NonNull String name, @NonNull String url, @NonNull String description) {
@@ -253,15 +372,99 @@ public final class Homage {
     }
 
     public void addLicense(@NonNull String key, @NonNull String name, @NonNull String url, @NonNull Spanned description) {
-        License license = new License(name, url, description);
-        mLicenses.put(key, license);
+        mLicenses.addLicense(key, new License(name, url, description));
+    }
+
+    /**
+     * Allows manifests to refer to an existing license by another code, such as an SPDX identifier. Codes are matched
+     * case insensitively. SPDX identifiers for the built-in licenses are registered by default.
+     */
+    public void addLicenseAlias(@NonNull String alias, @NonNull String key) {
+        mLicenses.addAlias(alias, key);
+    }
+
+    @NonNull
+    List<Callable<Library[]>> createLoaders() {
+        List<Callable<Library[]>> loaders = new ArrayList<>();
+        if (mAssetPaths != null) {
+            for (final String assetPath : mAssetPaths) {
+                if (TextUtils.isEmpty(assetPath)) {
+                    Log.w(TAG, "Empty asset path passed, ignoring");
+                    continue;
+                }
+
+                loaders.add(new Callable<Library[]>() {
+                    @Override
+                    public Library[] call() {
+                        return getLibraryArray(mContext, assetPath);
+                    }
+                });
+            }
+        }
+        if (mResourceIds != null) {
+            for (final int resourceId : mResourceIds) {
+                if (resourceId <= 0) {
+                    Log.w(TAG, "Invalid resource ID passed: " + resourceId + ", ignoring");
+                    continue;
+                }
+
+                loaders.add(new Callable<Library[]>() {
+                    @Override
+                    public Library[] call() {
+                        return getLibraryArray(mContext, resourceId);
+                    }
+                });
+            }
+        }
+        return loaders;
+    }
+
+    @Nullable
+    static Library[] runLoader(@NonNull Callable<Library[]> loader) {
+        try {
+            return loader.call();
+        } catch (Exception e) {
+            Log.e(TAG, "Exception loading libraries", e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Library[] awaitLoader(@NonNull FutureTask<Library[]> task) {
+        // Runs the task here if the executor hasn't started it yet, so a saturated (or shared) pool can't deadlock us
+        task.run();
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Exception loading libraries", e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static void addLibraries(@NonNull List<Library> libraries, @Nullable Library[] libs) {
+        if (libs != null) {
+            Collections.addAll(libraries, libs);
+        }
     }
 
     @Nullable
     private static Library[] getLibraryArray(@NonNull Context context, @RawRes int rawResourceId) {
+        Resources resources = context.getResources();
+        try {
+            MappedManifest manifest = MappedManifest.map(resources.openRawResourceFd(rawResourceId));
+            if (manifest != null) {
+                return manifest.getLibraries();
+            }
+        } catch (Resources.NotFoundException | IOException e) {
+            // Compressed resources can't be opened as a file descriptor, read them as a stream instead
+        }
+
         try {
-            InputStream stream = context.getResources().openRawResource(rawResourceId);
-            return parseLibraries(stream);
+            InputStream stream = resources.openRawResource(rawResourceId);
+            return readLibraries(stream);
         } catch (Resources.NotFoundException e) {
             Log.e(TAG, "NotFoundException reading license file: " + rawResourceId, e);
             return null;
@@ -270,9 +473,19 @@ public final class Homage {
 
     @Nullable
     private static Library[] getLibraryArray(@NonNull Context context, @NonNull String assetPath) {
+        AssetManager assets = context.getAssets();
         try {
-            InputStream stream = context.getAssets().open(assetPath);
-            return parseLibraries(stream);
+            MappedManifest manifest = MappedManifest.map(assets.openFd(assetPath));
+            if (manifest != null) {
+                return manifest.getLibraries();
+            }
+        } catch (IOException e) {
+            // Compressed assets can't be opened as a file descriptor, read them as a stream instead
+        }
+
+        try {
+            InputStream stream = assets.open(assetPath);
+            return readLibraries(stream);
         } catch (IOException e) {
             Log.e(TAG, "IOException reading license file: " + assetPath, e);
             return null;
@@ -280,31 +493,49 @@ public final class Homage {
     }
 
     @Nullable
-    private static Library[] parseLibraries(@NonNull InputStream inputStream) {
-        BufferedReader reader = null;
+    private static Library[] readLibraries(@NonNull InputStream inputStream) {
+        BufferedInputStream stream = new BufferedInputStream(inputStream);
         try {
-            reader = new BufferedReader(new InputStreamReader(inputStream));
-            StringBuilder jsonBuilder = new StringBuilder();
-
-            String line;
-            while ((line = reader.readLine()) != null) {
-                jsonBuilder.append(line);
+            if (!BinaryManifest.isBinaryManifest(stream)) {
+                // Not precompiled, fall back to JSON
+                return parseLibraries(stream);
             }
 
-            JSONObject json = new JSONObject(jsonBuilder.toString());
+            return BinaryManifest.read(stream);
+        } catch (IOException e) {
+            Log.e(TAG, "Exception reading binary manifest", e);
+            return null;
+        } finally {
+            closeQuietly(stream);
+        }
+    }
+
+    @VisibleForTesting
+    @Nullable
+    static Library[] parseLibraries(@NonNull InputStream inputStream) {
+        JsonReader reader = null;
+        try {
+            reader = new JsonReader(new BufferedReader(new InputStreamReader(inputStream, UTF_8)));
 
-            List<Library> libraries = new ArrayList<>();
-            JSONArray array = json.getJSONArray(JSON_KEY_LICENSES);
-            for (int i = 0 ; i < array.length(); i++) {
-                JSONObject object = array.getJSONObject(i);
-                libraries.add(parseLibrary(object));
+            List<Library> libraries = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (JSON_KEY_LICENSES.equals(reader.nextName())) {
+                    libraries = parseLibraryArray(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (libraries == null) {
+                Log.e(TAG, "No value for " + JSON_KEY_LICENSES);
+                return null;
             }
 
             return libraries.toArray(new Library[libraries.size()]);
-        } catch (IOException e) {
-            Log.e(TAG, "Exception reading input stream", e);
-            return null;
-        } catch (JSONException e) {
+        } catch (IOException | IllegalStateException e) {
+            // JsonReader throws IllegalStateException when the document does not match the expected structure
             Log.e(TAG, "Exception parsing JSON", e);
             return null;
         } finally {
@@ -313,30 +544,83 @@ public final class Homage {
     }
 
     @NonNull
-    private static Library parseLibrary(@NonNull JSONObject json) throws JSONException {
-        String name = getOptionalString(json, JSON_KEY_NAME);
-        String icon = getOptionalString(json, JSON_KEY_ICON);
-        String version = getOptionalString(json, JSON_KEY_VERSION);
-        String description = getOptionalString(json, JSON_KEY_DESCRIPTION);
-        String year = getOptionalString(json, JSON_KEY_YEAR);
-        String owner = getOptionalString(json, JSON_KEY_OWNER);
-        String ownerUrl = getOptionalString(json, JSON_KEY_OWNER_URL);
-        String url = getOptionalString(json, JSON_KEY_URL);
-        String license = getOptionalString(json, JSON_KEY_LICENSE);
-        return new Library(name, icon, version, description, year, owner, ownerUrl, url, license);
+    private static List<Library> parseLibraryArray(@NonNull JsonReader reader) throws IOException {
+        List<Library> libraries = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            libraries.add(parseLibrary(reader));
+        }
+        reader.endArray();
+        return libraries;
     }
 
-    @Nullable
-    private static String getOptionalString(@NonNull JSONObject jsonObject, @NonNull String key) {
-        try {
-            return getString(jsonObject, key);
-        } catch (JSONException e) {
-            return null;
+    @NonNull
+    private static Library parseLibrary(@NonNull JsonReader reader) throws IOException {
+        String name = null;
+        String icon = null;
+        String version = null;
+        String description = null;
+        String year = null;
+        String owner = null;
+        String ownerUrl = null;
+        String url = null;
+        String license = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case JSON_KEY_NAME:
+                    name = nextOptionalString(reader);
+                    break;
+                case JSON_KEY_ICON:
+                    icon = nextOptionalString(reader);
+                    break;
+                case JSON_KEY_VERSION:
+                    version = nextOptionalString(reader);
+                    break;
+                case JSON_KEY_DESCRIPTION:
+                    description = nextOptionalString(reader);
+                    break;
+                case JSON_KEY_YEAR:
+                    year = nextOptionalString(reader);
+                    break;
+                case JSON_KEY_OWNER:
+                    owner = nextOptionalString(reader);
+                    break;
+                case JSON_KEY_OWNER_URL:
+                    ownerUrl = nextOptionalString(reader);
+                    break;
+                case JSON_KEY_URL:
+                    url = nextOptionalString(reader);
+                    break;
+                case JSON_KEY_LICENSE:
+                    license = nextOptionalString(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
         }
+        reader.endObject();
+
+        return new Library(name, icon, version, description, year, owner, ownerUrl, url, license);
     }
 
     @Nullable
-    private static String getString(@NonNull JSONObject jsonObject, @NonNull String key) throws JSONException {
-        return jsonObject.getString(key);
+    private static String nextOptionalString(@NonNull JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case STRING:
+            case NUMBER:
+                // Numbers are returned in their literal form, e.g. "year": 2016
+                return reader.nextString();
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            case NULL:
+                reader.nextNull();
+                return null;
+            default:
+                reader.skipValue();
+                return null;
+        }
     }
 }
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Libraries stored in a local database rather than in memory, for applications with very large numbers of libraries.
+ * Manifests are imported once per install of the application, after which libraries are read a range at a time.
+ * All methods other than {@link #getCount()} access the database, so should be called from a background thread.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class HomageCatalog {
+
+    private static final String DATABASE_PREFIX = "homage-catalog-";
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE_LIBRARIES = "libraries";
+    private static final String TABLE_META = "meta";
+
+    private static final String COLUMN_POSITION = "position";
+    private static final String COLUMN_NAME = "name";
+    private static final String COLUMN_ICON = "icon";
+    private static final String COLUMN_VERSION = "version";
+    private static final String COLUMN_DESCRIPTION = "description";
+    private static final String COLUMN_YEAR = "year";
+    private static final String COLUMN_OWNER = "owner";
+    private static final String COLUMN_OWNER_URL = "owner_url";
+    private static final String COLUMN_URL = "url";
+    private static final String COLUMN_LICENSE = "license";
+    private static final String COLUMN_ICON_RESOURCE = "icon_resource";
+    private static final String COLUMN_ICON_URI = "icon_uri";
+    private static final String COLUMN_KEY = "key";
+
+    // Query and insert order, so cursor and statement indices line up with the columns
+    private static final String[] LIBRARY_COLUMNS = {
+            COLUMN_NAME, COLUMN_ICON, COLUMN_VERSION, COLUMN_DESCRIPTION, COLUMN_YEAR, COLUMN_OWNER,
+            COLUMN_OWNER_URL, COLUMN_URL, COLUMN_LICENSE, COLUMN_ICON_RESOURCE, COLUMN_ICON_URI
+    };
+
+    @NonNull
+    private final Homage mHomage;
+
+    @NonNull
+    private final Helper mHelper;
+
+    private final int mCount;
+
+
+    private HomageCatalog(@NonNull Homage homage, @NonNull Helper helper, int count) {
+        mHomage = homage;
+        mHelper = helper;
+        mCount = count;
+    }
+
+
+    @WorkerThread
+    @NonNull
+    static HomageCatalog open(@NonNull Homage homage) {
+        Context context = homage.getContext();
+        String sources = homage.getSourceKey();
+        Helper helper = new Helper(context, DATABASE_PREFIX + Integer.toHexString(sources.hashCode()) + ".db");
+        SQLiteDatabase db = helper.getWritableDatabase();
+
+        // Without package info the import can't be matched to an install, so it's always repeated
+        String key = CatalogCache.createInstallKey(context, sources);
+        if (key == null || !key.equals(readKey(db))) {
+            importLibraries(homage, db, key);
+        }
+        return new HomageCatalog(homage, helper, (int) DatabaseUtils.queryNumEntries(db, TABLE_LIBRARIES));
+    }
+
+    @Nullable
+    private static String readKey(@NonNull SQLiteDatabase db) {
+        Cursor cursor = db.query(TABLE_META, new String[]{COLUMN_KEY}, null, null, null, null, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @WorkerThread
+    private static void importLibraries(@NonNull Homage homage, @NonNull SQLiteDatabase db, @Nullable String key) {
+        IconResolver iconResolver = homage.getIconResolver();
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + TABLE_LIBRARIES + " (" + COLUMN_POSITION + ", " +
+                TextUtils.join(", ", LIBRARY_COLUMNS) + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_LIBRARIES, null, null);
+            db.delete(TABLE_META, null, null);
+
+            // One source at a time, so only the largest manifest is ever held in memory
+            int position = 0;
+            for (Callable<Library[]> loader : homage.createLoaders()) {
+                Library[] libraries = Homage.runLoader(loader);
+                if (libraries == null) {
+                    continue;
+                }
+
+                for (Library library : libraries) {
+                    homage.resolveIcon(library, iconResolver);
+                    insert.clearBindings();
+                    insert.bindLong(1, position++);
+                    bindOptionalString(insert, 2, library.getLibraryName());
+                    bindOptionalString(insert, 3, library.getLibraryIcon());
+                    bindOptionalString(insert, 4, library.getLibraryVersion());
+                    bindOptionalString(insert, 5, library.getLibraryDescription());
+                    bindOptionalString(insert, 6, library.getLibraryYear());
+                    bindOptionalString(insert, 7, library.getLibraryOwner());
+                    bindOptionalString(insert, 8, library.getLibraryOwnerUrl());
+                    bindOptionalString(insert, 9, library.getLibraryUrl());
+                    bindOptionalString(insert, 10, library.getLicenseCode());
+                    insert.bindLong(11, library.getIconResource());
+                    bindOptionalString(insert, 12, library.getIconUri());
+                    insert.executeInsert();
+                }
+            }
+
+            if (key != null) {
+                db.execSQL("INSERT INTO " + TABLE_META + " (" + COLUMN_KEY + ") VALUES (?)", new Object[]{key});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+    }
+
+    private static void bindOptionalString(@NonNull SQLiteStatement statement, int index, @Nullable String value) {
+        if (value != null) {
+            statement.bindString(index, value);
+        } else {
+            statement.bindNull(index);
+        }
+    }
+
+    @NonNull
+    public Homage getHomage() {
+        return mHomage;
+    }
+
+    /**
+     * @return the total number of libraries, without accessing the database
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Reads the libraries in the given range of positions, with their licenses and icons resolved.
+     */
+    @WorkerThread
+    @NonNull
+    public List<Library> getLibraries(int start, int count) {
+        if (count <= 0 || start >= mCount) {
+            return Collections.emptyList();
+        }
+
+        String[] args = {String.valueOf(start), String.valueOf(start + count)};
+        Cursor cursor = mHelper.getReadableDatabase().query(TABLE_LIBRARIES, LIBRARY_COLUMNS,
+                COLUMN_POSITION + " >= ? AND " + COLUMN_POSITION + " < ?", args, null, null, COLUMN_POSITION);
+        try {
+            List<Library> libraries = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                Library library = new Library(
+                        cursor.getString(0),
+                        cursor.getString(1),
+                        cursor.getString(2),
+                        cursor.getString(3),
+                        cursor.getString(4),
+                        cursor.getString(5),
+                        cursor.getString(6),
+                        cursor.getString(7),
+                        cursor.getString(8));
+                library.setIconResource(cursor.getInt(9));
+                library.setIconUri(cursor.getString(10));
+                mHomage.resolveLicense(library);
+                libraries.add(library);
+            }
+            return libraries;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    public void close() {
+        mHelper.close();
+    }
+
+
+    private static final class Helper extends SQLiteOpenHelper {
+
+        Helper(@NonNull Context context, @NonNull String name) {
+            super(context, name, null, DATABASE_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE_LIBRARIES + " (" +
+                    COLUMN_POSITION + " INTEGER PRIMARY KEY, " +
+                    COLUMN_NAME + " TEXT, " +
+                    COLUMN_ICON + " TEXT, " +
+                    COLUMN_VERSION + " TEXT, " +
+                    COLUMN_DESCRIPTION + " TEXT, " +
+                    COLUMN_YEAR + " TEXT, " +
+                    COLUMN_OWNER + " TEXT, " +
+                    COLUMN_OWNER_URL + " TEXT, " +
+                    COLUMN_URL + " TEXT, " +
+                    COLUMN_LICENSE + " TEXT, " +
+                    COLUMN_ICON_RESOURCE + " INTEGER, " +
+                    COLUMN_ICON_URI + " TEXT)");
+            db.execSQL("CREATE TABLE " + TABLE_META + " (" + COLUMN_KEY + " TEXT)");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            // Only a copy of the manifests, so it can simply be imported again
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_LIBRARIES);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_META);
+            onCreate(db);
+        }
+    }
+}
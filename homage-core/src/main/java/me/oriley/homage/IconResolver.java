@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage;
+
+import android.support.annotation.DrawableRes;
+import android.support.annotation.NonNull;
+
+/**
+ * Maps manifest icon names to drawable resources without reflection. An implementation named {@code HomageIcons} is
+ * generated into your application package by the {@code gradle/homage.gradle} build script.
+ */
+public interface IconResolver {
+
+    /**
+     * @return the drawable or mipmap resource for the given icon name, or 0 if unknown
+     */
+    @DrawableRes
+    int getIconResource(@NonNull String name);
+}
@@ -21,6 +21,8 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.Spanned;
 
+import static me.oriley.homage.BinaryManifest.*;
+
 @SuppressWarnings({"WeakerAccess", "unused"})
 public final class Library {
 
@@ -68,6 +70,12 @@ public final class Library {
     @Nullable
     private String mIconUri;
 
+    // Set when fields are decoded on demand from a memory mapped manifest
+    @Nullable
+    private final MappedManifest mManifest;
+
+    private final int mManifestIndex;
+
 
     Library(@Nullable String name,
             @Nullable String icon,
@@ -87,52 +95,68 @@ public final class Library {
         mLibraryOwnerUrl = ownerUrl;
         mLibraryUrl = url;
         mLicenseCode = license;
+        mManifest = null;
+        mManifestIndex = -1;
+    }
+
+    Library(@NonNull MappedManifest manifest, int index) {
+        mLibraryName = null;
+        mLibraryIcon = null;
+        mLibraryVersion = null;
+        mLibraryDescription = null;
+        mLibraryYear = null;
+        mLibraryOwner = null;
+        mLibraryOwnerUrl = null;
+        mLibraryUrl = null;
+        mLicenseCode = null;
+        mManifest = manifest;
+        mManifestIndex = index;
     }
 
 
     @Nullable
     public String getLibraryName() {
-        return mLibraryName;
+        return mManifest != null ? mManifest.getField(mManifestIndex, FIELD_NAME) : mLibraryName;
     }
 
     @Nullable
     public String getLibraryIcon() {
-        return mLibraryIcon;
+        return mManifest != null ? mManifest.getField(mManifestIndex, FIELD_ICON) : mLibraryIcon;
     }
 
     @Nullable
     public String getLibraryVersion() {
-        return mLibraryVersion;
+        return mManifest != null ? mManifest.getField(mManifestIndex, FIELD_VERSION) : mLibraryVersion;
     }
 
     @Nullable
     public String getLibraryDescription() {
-        return mLibraryDescription;
+        return mManifest != null ? mManifest.getField(mManifestIndex, FIELD_DESCRIPTION) : mLibraryDescription;
     }
 
     @Nullable
     public String getLibraryYear() {
-        return mLibraryYear;
+        return mManifest != null ? mManifest.getField(mManifestIndex, FIELD_YEAR) : mLibraryYear;
     }
 
     @Nullable
     public String getLibraryOwner() {
-        return mLibraryOwner;
+        return mManifest != null ? mManifest.getField(mManifestIndex, FIELD_OWNER) : mLibraryOwner;
     }
 
     @Nullable
     public String getLibraryOwnerUrl() {
-        return mLibraryOwnerUrl;
+        return mManifest != null ? mManifest.getField(mManifestIndex, FIELD_OWNER_URL) : mLibraryOwnerUrl;
     }
 
     @Nullable
     public String getLibraryUrl() {
-        return mLibraryUrl;
+        return mManifest != null ? mManifest.getField(mManifestIndex, FIELD_URL) : mLibraryUrl;
     }
 
     @Nullable
     public String getLicenseCode() {
-        return mLicenseCode;
+        return mManifest != null ? mManifest.getField(mManifestIndex, FIELD_LICENSE) : mLicenseCode;
     }
 
     @DrawableRes
@@ -151,6 +175,13 @@ public final class Library {
         return mLicense;
     }
 
+    /**
+     * @return whether the library's fields are read from a mapped binary manifest rather than held on the heap
+     */
+    boolean isMapped() {
+        return mManifest != null;
+    }
+
     void setIconResource(@DrawableRes int iconResource) {
         mIconResource = iconResource;
     }
@@ -181,6 +212,16 @@ public final class Library {
         return mLicense.getDescription();
     }
 
+    /**
+     * Returns the license description only if it has already been parsed, so unlike {@link #getLicenseDescription()}
+     * it is always cheap enough to call while binding views.
+     */
+    @Nullable
+    public Spanned peekLicenseDescription() {
+        validateLicense();
+        return mLicense.peekDescription();
+    }
+
     private void validateLicense() {
         if (mLicense == null) {
             throw new NullPointerException("License is null");
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index over library names, owners, descriptions and license names, for searching as the user types. Text
+ * is split into lowercase words, and a library matches a query when every word of the query starts a word in any of
+ * its indexed fields.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class LibraryIndex {
+
+    private static final String[] NO_TOKENS = new String[0];
+
+    @NonNull
+    private final List<Library> mLibraries;
+
+    // Sorted, so all words starting with a query word are adjacent
+    @NonNull
+    private final String[] mTokens;
+
+    // Ascending library indices for each token
+    @NonNull
+    private final int[][] mPostings;
+
+    // Number of query words each library matched in the current search, offset by mStampBase
+    @NonNull
+    private final int[] mStamps;
+
+    private int mStampBase;
+
+    // Postings read by the last search, which is what its cost grows with
+    private int mVisited;
+
+
+    private LibraryIndex(@NonNull List<Library> libraries, @NonNull String[] tokens, @NonNull int[][] postings) {
+        mLibraries = libraries;
+        mTokens = tokens;
+        mPostings = postings;
+        mStamps = new int[libraries.size()];
+    }
+
+
+    @WorkerThread
+    @NonNull
+    public static LibraryIndex build(@NonNull List<Library> libraries) {
+        Map<String, Postings> index = new HashMap<>();
+        for (int i = 0, size = libraries.size(); i < size; i++) {
+            Library library = libraries.get(i);
+            addTokens(index, library.getLibraryName(), i);
+            addTokens(index, library.getLibraryOwner(), i);
+            addTokens(index, library.getLibraryDescription(), i);
+            addTokens(index, library.getLicenseName(), i);
+        }
+
+        String[] tokens = index.keySet().toArray(new String[index.size()]);
+        Arrays.sort(tokens);
+
+        int[][] postings = new int[tokens.length][];
+        for (int i = 0; i < tokens.length; i++) {
+            postings[i] = index.get(tokens[i]).toArray();
+        }
+        return new LibraryIndex(libraries, tokens, postings);
+    }
+
+    private static void addTokens(@NonNull Map<String, Postings> index, @Nullable String text, int library) {
+        if (text == null) {
+            return;
+        }
+
+        for (String token : tokenize(text)) {
+            Postings postings = index.get(token);
+            if (postings == null) {
+                postings = new Postings();
+                index.put(token, postings);
+            }
+            postings.add(library);
+        }
+    }
+
+    /**
+     * Splits text into the lowercase words used by the index, ignoring punctuation and whitespace.
+     */
+    @NonNull
+    public static String[] tokenize(@NonNull CharSequence text) {
+        List<String> tokens = null;
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (tokens == null) {
+                    tokens = new ArrayList<>();
+                }
+                tokens.add(toLowerCase(text, start, i));
+                start = -1;
+            }
+        }
+        return tokens != null ? tokens.toArray(new String[tokens.size()]) : NO_TOKENS;
+    }
+
+    @NonNull
+    private static String toLowerCase(@NonNull CharSequence text, int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = Character.toLowerCase(text.charAt(i));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return the libraries this index was built from
+     */
+    @NonNull
+    public List<Library> getLibraries() {
+        return mLibraries;
+    }
+
+    /**
+     * Returns the libraries matching every word of the query, in their original order. An empty query matches all
+     * libraries.
+     */
+    @NonNull
+    public List<Library> search(@NonNull CharSequence query) {
+        return search(tokenize(query));
+    }
+
+    @NonNull
+    public synchronized List<Library> search(@NonNull String[] queryTokens) {
+        if (queryTokens.length == 0) {
+            mVisited = 0;
+            return mLibraries;
+        }
+
+        if (mStampBase > Integer.MAX_VALUE - queryTokens.length - 1) {
+            Arrays.fill(mStamps, 0);
+            mStampBase = 0;
+        }
+
+        // A library's stamp only advances if it matched every previous query word, so only the postings of matching
+        // tokens are visited rather than every library
+        int base = mStampBase;
+        int visited = 0;
+        for (int q = 0; q < queryTokens.length; q++) {
+            String queryToken = queryTokens[q];
+            int previous = base + q;
+            int current = previous + 1;
+            for (int t = findFirst(queryToken); t < mTokens.length && mTokens[t].startsWith(queryToken); t++) {
+                visited += mPostings[t].length;
+                for (int library : mPostings[t]) {
+                    if (q == 0 ? mStamps[library] <= base : mStamps[library] == previous) {
+                        mStamps[library] = current;
+                    }
+                }
+            }
+        }
+
+        int matched = base + queryTokens.length;
+        mStampBase = matched;
+        mVisited = visited;
+
+        List<Library> results = new ArrayList<>();
+        for (int i = 0; i < mStamps.length; i++) {
+            if (mStamps[i] == matched) {
+                results.add(mLibraries.get(i));
+            }
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    @VisibleForTesting
+    synchronized int getLastSearchVisits() {
+        return mVisited;
+    }
+
+    private int findFirst(@NonNull String prefix) {
+        int index = Arrays.binarySearch(mTokens, prefix);
+        return index >= 0 ? index : -index - 1;
+    }
+
+
+    private static final class Postings {
+
+        @NonNull
+        private int[] mValues = new int[4];
+
+        private int mSize;
+
+
+        void add(int library) {
+            // Libraries are added in order, so repeated words in the same library are always adjacent
+            if (mSize > 0 && mValues[mSize - 1] == library) {
+                return;
+            }
+            if (mSize == mValues.length) {
+                mValues = Arrays.copyOf(mValues, mSize * 2);
+            }
+            mValues[mSize++] = library;
+        }
+
+        @NonNull
+        int[] toArray() {
+            return Arrays.copyOf(mValues, mSize);
+        }
+    }
+}
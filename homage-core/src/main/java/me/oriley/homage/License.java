@@ -16,40 +16,105 @@
 
 package me.oriley.homage;
 
+import android.content.res.Resources;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.StringRes;
+import android.text.Html;
 import android.text.Spanned;
 
+import java.util.Locale;
+
 final class License {
 
-    @NonNull
+    @Nullable
     private final String mName;
 
-    @NonNull
+    @Nullable
     private final String mUrl;
 
-    @NonNull
-    private final Spanned mDescription;
+    @Nullable
+    private final Resources mResources;
+
+    @StringRes
+    private final int mNameRes;
+
+    @StringRes
+    private final int mUrlRes;
+
+    @StringRes
+    private final int mDescriptionRes;
+
+    @Nullable
+    private volatile Spanned mDescription;
+
+    // Locale the description was parsed in, so it can be parsed again if the locale changes
+    @Nullable
+    private volatile Locale mDescriptionLocale;
 
 
     License(@NonNull String name, @NonNull String url, @NonNull Spanned description) {
         mName = name;
         mUrl = url;
+        mResources = null;
+        mNameRes = 0;
+        mUrlRes = 0;
+        mDescriptionRes = 0;
         mDescription = description;
     }
 
+    /**
+     * Strings are looked up whenever they are requested so they follow the current locale, and the HTML description
+     * resource is only parsed the first time {@link #getDescription()} is called in each locale.
+     */
+    License(@NonNull Resources resources, @StringRes int nameRes, @StringRes int urlRes, @StringRes int descriptionRes) {
+        mName = null;
+        mUrl = null;
+        mResources = resources;
+        mNameRes = nameRes;
+        mUrlRes = urlRes;
+        mDescriptionRes = descriptionRes;
+    }
+
 
     @NonNull
     String getName() {
-        return mName;
+        //noinspection ConstantConditions
+        return mResources != null ? mResources.getString(mNameRes) : mName;
     }
 
     @NonNull
     String getUrl() {
-        return mUrl;
+        //noinspection ConstantConditions
+        return mResources != null ? mResources.getString(mUrlRes) : mUrl;
     }
 
     @NonNull
     Spanned getDescription() {
-        return mDescription;
+        Spanned description = peekDescription();
+        if (description == null) {
+            // Racing threads may both parse, but the results are equivalent so no locking is needed
+            //noinspection ConstantConditions
+            Locale locale = mResources.getConfiguration().locale;
+            description = Html.fromHtml(mResources.getString(mDescriptionRes));
+            mDescription = description;
+            mDescriptionLocale = locale;
+        }
+        return description;
+    }
+
+    /**
+     * @return the description if it has been parsed for the current locale, otherwise null
+     */
+    @Nullable
+    Spanned peekDescription() {
+        if (mResources == null) {
+            return mDescription;
+        }
+
+        // The description is written before its locale, so reading the locale first never pairs it with an older one
+        boolean sameLocale = mResources.getConfiguration().locale.equals(mDescriptionLocale);
+        Spanned description = mDescription;
+        return sameLocale ? description : null;
     }
-}
\ No newline at end of file
+}
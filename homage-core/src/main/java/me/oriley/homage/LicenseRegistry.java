@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.StringRes;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import me.oriley.homage.Homage.CoreLicense;
+
+import static me.oriley.homage.Homage.CoreLicense.*;
+
+/**
+ * Process wide set of licenses, shared by every {@link Homage} instance so the built-in definitions are only created
+ * once. Custom licenses added through any instance are visible to all of them.
+ */
+final class LicenseRegistry {
+
+    // Codes used by earlier versions of Homage, followed by SPDX identifiers
+    private static final String[][] CORE_ALIASES = {
+            {"cc0", CC0_1_0.name()},
+            {"cc3", CC_3_0.name()},
+            {"lgpl3", LGPL_3_0.name()},
+            {"apache2", APACHE_2_0.name()},
+            {"bsd2", BSD_2.name()},
+            {"bsd3", BSD_3.name()},
+            {"Apache-2.0", APACHE_2_0.name()},
+            {"BSD-2-Clause", BSD_2.name()},
+            {"BSD-3-Clause", BSD_3.name()},
+            {"CC0-1.0", CC0_1_0.name()},
+            {"CC-BY-3.0", CC_3_0.name()},
+            {"LGPL-3.0", LGPL_3_0.name()},
+    };
+
+    @Nullable
+    private static volatile LicenseRegistry sInstance;
+
+    // Normalised key -> license, so manifest codes can be matched case insensitively in constant time
+    @NonNull
+    private final Map<String, License> mIndex = new ConcurrentHashMap<>();
+
+    // Normalised alias -> normalised key. Resolved on lookup so re-registering a key also updates its aliases.
+    @NonNull
+    private final Map<String, String> mAliases = new ConcurrentHashMap<>();
+
+    @NonNull
+    private final Context mContext;
+
+
+    private LicenseRegistry(@NonNull Context context) {
+        mContext = context;
+
+        addLicense(APACHE_2_0, R.string.homage_license_apache_2_0_name, R.string.homage_license_apache_2_0_website, R.string.homage_license_apache_2_0_description);
+        addLicense(BSD_2, R.string.homage_license_bsd_2_name, R.string.homage_license_bsd_2_website, R.string.homage_license_bsd_2_description);
+        addLicense(BSD_3, R.string.homage_license_bsd_3_name, R.string.homage_license_bsd_3_website, R.string.homage_license_bsd_3_description);
+        addLicense(CC0_1_0, R.string.homage_license_cc0_1_0_name, R.string.homage_license_cc0_1_0_website, R.string.homage_license_cc0_1_0_description);
+        addLicense(CC_3_0, R.string.homage_license_cc_3_0_name, R.string.homage_license_cc_3_0_website, R.string.homage_license_cc_3_0_description);
+        addLicense(LGPL_3_0, R.string.homage_license_lgpl_3_0_name, R.string.homage_license_lgpl_3_0_website, R.string.homage_license_lgpl_3_0_description);
+        addLicense(MIT, R.string.homage_license_mit_name, R.string.homage_license_mit_website, R.string.homage_license_mit_description);
+        addLicense(UNRECOGNISED, R.string.homage_empty_license, R.string.homage_empty_license, R.string.homage_unrecognised_license);
+        addLicense(NONE, R.string.homage_empty_license, R.string.homage_empty_license, R.string.homage_empty_license);
+
+        for (String[] alias : CORE_ALIASES) {
+            addAlias(alias[0], alias[1]);
+        }
+    }
+
+
+    @NonNull
+    static LicenseRegistry get(@NonNull Context context) {
+        LicenseRegistry registry = sInstance;
+        if (registry == null) {
+            synchronized (LicenseRegistry.class) {
+                registry = sInstance;
+                if (registry == null) {
+                    registry = new LicenseRegistry(context.getApplicationContext());
+                    sInstance = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
+    private void addLicense(@NonNull CoreLicense coreLicense, @StringRes int nameRes, @StringRes int urlRes, @StringRes int descRes) {
+        addLicense(coreLicense.name(), nameRes, urlRes, descRes);
+    }
+
+    void addLicense(@NonNull String key, @StringRes int nameRes, @StringRes int urlRes, @StringRes int descRes) {
+        addLicense(key, new License(mContext.getResources(), nameRes, urlRes, descRes));
+    }
+
+    void addLicense(@NonNull String key, @NonNull License license) {
+        mIndex.put(normalise(key), license);
+    }
+
+    void addAlias(@NonNull String alias, @NonNull String key) {
+        mAliases.put(normalise(alias), normalise(key));
+    }
+
+    /**
+     * Case insensitive lookup of a license key or alias.
+     */
+    @Nullable
+    License findLicense(@NonNull String code) {
+        String normalised = normalise(code);
+        License license = mIndex.get(normalised);
+        if (license == null) {
+            String key = mAliases.get(normalised);
+            if (key != null) {
+                license = mIndex.get(key);
+            }
+        }
+        return license;
+    }
+
+    @NonNull
+    License getLicense(@NonNull CoreLicense coreLicense) {
+        return mIndex.get(normalise(coreLicense.name()));
+    }
+
+    @NonNull
+    private static String normalise(@NonNull String key) {
+        return key.trim().toLowerCase(Locale.US);
+    }
+}
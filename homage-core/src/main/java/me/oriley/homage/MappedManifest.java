@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage;
+
+import android.content.res.AssetFileDescriptor;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static me.oriley.homage.BinaryManifest.*;
+import static me.oriley.homage.utils.IOUtils.closeQuietly;
+
+/**
+ * Memory mapped view of a binary manifest (see {@link BinaryManifest}). Libraries created from a mapped manifest
+ * decode their fields from the mapping each time they are accessed, so heap usage does not grow with manifest size.
+ */
+final class MappedManifest {
+
+    private static final String TAG = MappedManifest.class.getSimpleName();
+
+    @NonNull
+    private final ByteBuffer mBuffer;
+
+    private final int mLibraryCount;
+    private final int mStringCount;
+    private final int mOffsetsStart;
+    private final int mRecordsStart;
+    private final int mStringsStart;
+
+
+    private MappedManifest(@NonNull ByteBuffer buffer, int libraryCount, int stringCount) {
+        mBuffer = buffer;
+        mLibraryCount = libraryCount;
+        mStringCount = stringCount;
+        mOffsetsStart = HEADER_SIZE;
+        mRecordsStart = mOffsetsStart + stringCount * 4;
+        mStringsStart = mRecordsStart + libraryCount * FIELD_COUNT * 4;
+    }
+
+
+    /**
+     * Maps the given descriptor, which must refer to an uncompressed file.
+     *
+     * @return the mapped manifest, or {@code null} if the file is not a binary manifest (e.g. JSON)
+     */
+    @Nullable
+    static MappedManifest map(@NonNull AssetFileDescriptor descriptor) throws IOException {
+        FileInputStream stream = null;
+        try {
+            stream = new FileInputStream(descriptor.getFileDescriptor());
+            FileChannel channel = stream.getChannel();
+
+            // The mapping remains valid after the channel and descriptor are closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(),
+                    descriptor.getLength());
+            return create(buffer);
+        } finally {
+            closeQuietly(stream);
+            // AssetFileDescriptor is not Closeable before API 19
+            try {
+                descriptor.close();
+            } catch (IOException e) {
+                // Ignored
+            }
+        }
+    }
+
+    @VisibleForTesting
+    @Nullable
+    static MappedManifest create(@NonNull ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            return null;
+        }
+
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary manifest version: " + version);
+        }
+
+        int libraryCount = buffer.getInt(8);
+        int stringCount = buffer.getInt(12);
+        long stringsStart = HEADER_SIZE + stringCount * 4L + libraryCount * (long) FIELD_COUNT * 4L;
+        if (libraryCount < 0 || stringCount < 0 || stringsStart > buffer.limit()) {
+            throw new IOException("Corrupt binary manifest header");
+        }
+
+        return new MappedManifest(buffer, libraryCount, stringCount);
+    }
+
+    @NonNull
+    Library[] getLibraries() {
+        Library[] libraries = new Library[mLibraryCount];
+        for (int i = 0; i < mLibraryCount; i++) {
+            libraries[i] = new Library(this, i);
+        }
+        return libraries;
+    }
+
+    @Nullable
+    String getField(int library, int field) {
+        int index = mBuffer.getInt(mRecordsStart + (library * FIELD_COUNT + field) * 4);
+        if (index == NO_STRING) {
+            return null;
+        } else if (index < 0 || index >= mStringCount) {
+            Log.e(TAG, "Invalid string index " + index + " for library " + library);
+            return null;
+        }
+
+        int position = mStringsStart + mBuffer.getInt(mOffsetsStart + index * 4);
+        if (position < mStringsStart || position + 2 > mBuffer.limit()) {
+            Log.e(TAG, "Invalid string offset for index " + index);
+            return null;
+        }
+
+        int length = mBuffer.getShort(position) & 0xffff;
+        return decodeModifiedUtf8(mBuffer, position + 2, length);
+    }
+
+    /**
+     * Decodes the modified UTF-8 written by DataOutput.writeUTF using absolute reads, so the buffer can be shared
+     * between threads.
+     */
+    @Nullable
+    private static String decodeModifiedUtf8(@NonNull ByteBuffer buffer, int start, int length) {
+        if (start + length > buffer.limit()) {
+            Log.e(TAG, "String at " + start + " exceeds manifest bounds");
+            return null;
+        }
+
+        char[] chars = new char[length];
+        int count = 0;
+        int position = start;
+        int end = start + length;
+        while (position < end) {
+            int a = buffer.get(position++) & 0xff;
+            if (a < 0x80) {
+                chars[count++] = (char) a;
+            } else if ((a & 0xe0) == 0xc0 && position < end) {
+                int b = buffer.get(position++) & 0xff;
+                chars[count++] = (char) (((a & 0x1f) << 6) | (b & 0x3f));
+            } else if ((a & 0xf0) == 0xe0 && position + 1 < end) {
+                int b = buffer.get(position++) & 0xff;
+                int c = buffer.get(position++) & 0xff;
+                chars[count++] = (char) (((a & 0x0f) << 12) | ((b & 0x3f) << 6) | (c & 0x3f));
+            } else {
+                Log.e(TAG, "Malformed string at " + start);
+                return null;
+            }
+        }
+        return new String(chars, 0, count);
+    }
+}
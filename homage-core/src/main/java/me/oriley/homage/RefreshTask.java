@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class RefreshTask {
+
+    @NonNull
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+    @NonNull
+    private final Homage mHomage;
+
+    @NonNull
+    private final Runnable mRunnable = new Runnable() {
+        @Override
+        public void run() {
+            load();
+        }
+    };
+
+    // Cleared on cancel so that a destroyed host is not retained until the load finishes
+    @Nullable
+    private volatile Homage.Callback mCallback;
+
+    private volatile boolean mCancelled;
+
+
+    RefreshTask(@NonNull Homage homage, @NonNull Homage.Callback callback) {
+        mHomage = homage;
+        mCallback = callback;
+    }
+
+
+    @NonNull
+    Runnable getRunnable() {
+        return mRunnable;
+    }
+
+    /**
+     * Cancels the refresh. If called from the main thread, the callback is guaranteed not to be invoked.
+     */
+    public void cancel() {
+        mCancelled = true;
+        mCallback = null;
+    }
+
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    private void load() {
+        if (mCancelled) {
+            return;
+        }
+
+        final List<Library> libraries = mHomage.loadLibraries();
+        if (mCancelled) {
+            return;
+        }
+
+        sMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                deliver(libraries);
+            }
+        });
+    }
+
+    @MainThread
+    private void deliver(@Nullable List<Library> libraries) {
+        Homage.Callback callback = mCallback;
+        if (mCancelled || callback == null) {
+            return;
+        }
+
+        if (libraries != null) {
+            mHomage.setLibraries(libraries);
+        }
+        mCallback = null;
+        callback.onLibrariesRefreshed(mHomage.getLibraries());
+    }
+}
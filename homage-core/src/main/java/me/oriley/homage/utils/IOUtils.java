@@ -16,23 +16,36 @@
 
 package me.oriley.homage.utils;
 
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import java.io.*;
+import java.nio.charset.Charset;
 
 @SuppressWarnings("WeakerAccess")
 public final class IOUtils {
 
+    @NonNull
+    public static final Charset UTF_8 = Charset.forName("UTF-8");
+
 
     private IOUtils() {
         throw new IllegalAccessError("no instances");
     }
 
 
+    /**
+     * @deprecated kept for binary compatibility, use {@link #closeQuietly(Closeable)}
+     */
+    @Deprecated
     public static void closeQuietly(@Nullable Reader reader) {
-        if (reader != null) {
+        closeQuietly((Closeable) reader);
+    }
+
+    public static void closeQuietly(@Nullable Closeable closeable) {
+        if (closeable != null) {
             try {
-                reader.close();
+                closeable.close();
             } catch (IOException e) {
                 // Ignored
             }
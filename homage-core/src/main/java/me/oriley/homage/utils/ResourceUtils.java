@@ -18,9 +18,13 @@ package me.oriley.homage.utils;
 
 import android.content.Context;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.Log;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Locale.US;
 
@@ -36,6 +40,10 @@ public final class ResourceUtils {
 
     private static final int INVALID = -1;
 
+    // Name -> ID maps, keyed by R class name and shared by all callers
+    @NonNull
+    private static final ConcurrentHashMap<String, Map<String, Integer>> sIndexes = new ConcurrentHashMap<>();
+
 
     private ResourceUtils() {
         throw new IllegalAccessError("no instances");
@@ -44,23 +52,56 @@ public final class ResourceUtils {
 
     public static int getResourceId(@NonNull Context context, @NonNull String name, @NonNull ResourceType type) {
         String typeName = type.name().toLowerCase(US);
-        try {
-            Class resourceClass = Class.forName(context.getPackageName() + ".R$" + typeName);
-            return getResourceId(name, resourceClass);
-        } catch (Exception e) {
-            Log.e(TAG, "Exception reading field " + name + " for type " + typeName, e);
-            return INVALID;
+        String packageName = context.getPackageName();
+        Map<String, Integer> index = getIndex(packageName + ".R$" + typeName, null);
+
+        Integer id = index.get(name);
+        if (id == null) {
+            // Not found in the R class (or it was stripped), ask the framework and remember the answer
+            int identifier = context.getResources().getIdentifier(name, typeName, packageName);
+            id = identifier != 0 ? identifier : INVALID;
+            index.put(name, id);
         }
+        return id;
     }
 
     public static int getResourceId(@NonNull String name, @NonNull Class<?> resourceClass) {
+        Integer id = getIndex(resourceClass.getName(), resourceClass).get(name);
+        return id != null ? id : INVALID;
+    }
+
+    @NonNull
+    private static Map<String, Integer> getIndex(@NonNull String className, @Nullable Class<?> resourceClass) {
+        Map<String, Integer> index = sIndexes.get(className);
+        if (index == null) {
+            Map<String, Integer> newIndex = createIndex(className, resourceClass);
+            index = sIndexes.putIfAbsent(className, newIndex);
+            if (index == null) {
+                index = newIndex;
+            }
+        }
+        return index;
+    }
+
+    @NonNull
+    private static Map<String, Integer> createIndex(@NonNull String className, @Nullable Class<?> resourceClass) {
+        ConcurrentHashMap<String, Integer> index = new ConcurrentHashMap<>();
         try {
-            Field field = resourceClass.getDeclaredField(name);
-            field.setAccessible(true);
-            return field.getInt(field);
+            if (resourceClass == null) {
+                resourceClass = Class.forName(className);
+            }
+
+            for (Field field : resourceClass.getDeclaredFields()) {
+                if (field.getType() == int.class && Modifier.isStatic(field.getModifiers())) {
+                    field.setAccessible(true);
+                    index.put(field.getName(), field.getInt(null));
+                }
+            }
+        } catch (ClassNotFoundException e) {
+            Log.w(TAG, "Resource class " + className + " not found, falling back to Resources.getIdentifier()");
         } catch (Exception e) {
-            Log.e(TAG, "Exception reading field " + name + " for class " + resourceClass.getName(), e);
-            return INVALID;
+            Log.w(TAG, "Exception indexing resource class " + className + ": " + e);
         }
+        return index;
     }
 }
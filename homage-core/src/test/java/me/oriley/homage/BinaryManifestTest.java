@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage;
+
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import static me.oriley.homage.BinaryManifest.*;
+import static me.oriley.homage.TestManifests.*;
+import static me.oriley.homage.utils.IOUtils.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BinaryManifestTest {
+
+    @Test
+    public void detectsBinaryManifestWithoutConsumingStream() throws Exception {
+        InputStream stream = new BufferedInputStream(new ByteArrayInputStream(createBinaryManifest(HOMAGE)));
+        assertTrue(isBinaryManifest(stream));
+        assertEquals(MAGIC, new DataInputStream(stream).readInt());
+    }
+
+    @Test
+    public void doesNotDetectJsonOrShortStreams() throws Exception {
+        byte[] json = "{\"licenses\": []}".getBytes(UTF_8);
+        InputStream stream = new BufferedInputStream(new ByteArrayInputStream(json));
+        assertFalse(isBinaryManifest(stream));
+        assertEquals('{', stream.read());
+
+        assertFalse(isBinaryManifest(new BufferedInputStream(new ByteArrayInputStream(new byte[]{0x48, 0x4D}))));
+    }
+
+    @Test
+    public void readsAllFields() throws Exception {
+        Library[] libraries = read(new ByteArrayInputStream(createBinaryManifest(HOMAGE, UNICODE)));
+
+        assertEquals(2, libraries.length);
+        assertFields(HOMAGE, libraries[0]);
+        assertFields(UNICODE, libraries[1]);
+    }
+
+    @Test
+    public void readsEmptyManifest() throws Exception {
+        assertEquals(0, read(new ByteArrayInputStream(createBinaryManifest())).length);
+    }
+
+    @Test(expected = IOException.class)
+    public void readRejectsUnsupportedVersion() throws Exception {
+        byte[] manifest = createBinaryManifest(HOMAGE);
+        ByteBuffer.wrap(manifest).putInt(4, VERSION + 1);
+        read(new ByteArrayInputStream(manifest));
+    }
+
+    @Test(expected = IOException.class)
+    public void readRejectsInvalidStringIndex() throws Exception {
+        byte[] manifest = createBinaryManifest(HOMAGE);
+        ByteBuffer.wrap(manifest).putInt(getRecordPosition(manifest, 0, FIELD_NAME), 1000);
+        read(new ByteArrayInputStream(manifest));
+    }
+
+    @Test
+    public void readRejectsTruncatedManifest() throws Exception {
+        byte[] manifest = createBinaryManifest(HOMAGE, UNICODE);
+        byte[] truncated = new byte[manifest.length - 8];
+        System.arraycopy(manifest, 0, truncated, 0, truncated.length);
+        try {
+            read(new ByteArrayInputStream(truncated));
+            fail("Truncated manifest was read");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.SpannedString;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LibraryIndexTest {
+
+    private Library mHomage;
+    private Library mOkHttp;
+    private Library mRetrofit;
+    private Library mPicasso;
+
+    private LibraryIndex mIndex;
+
+
+    @Before
+    public void setUp() {
+        mHomage = createLibrary("Homage", "Kane O'Riley", "Credits screen for open source libraries", "Apache 2.0");
+        mOkHttp = createLibrary("OkHttp", "Square", "An HTTP & HTTP/2 client", "Apache 2.0");
+        mRetrofit = createLibrary("Retrofit", "Square", "Type-safe HTTP client", "Apache 2.0");
+        mPicasso = createLibrary("Picasso", "Square", null, "MIT License");
+        mIndex = LibraryIndex.build(Arrays.asList(mHomage, mOkHttp, mRetrofit, mPicasso));
+    }
+
+
+    @Test
+    public void tokenizesOnNonAlphanumerics() {
+        assertArrayEquals(new String[]{"type", "safe", "http", "2", "client"},
+                LibraryIndex.tokenize("Type-safe HTTP/2 client!"));
+        assertArrayEquals(new String[0], LibraryIndex.tokenize(" - "));
+    }
+
+    @Test
+    public void emptyQueryReturnsAllLibraries() {
+        assertSame(mIndex.getLibraries(), mIndex.search(""));
+        assertSame(mIndex.getLibraries(), mIndex.search("  "));
+    }
+
+    @Test
+    public void matchesWordPrefixesIgnoringCase() {
+        assertResults(mIndex.search("ok"), mOkHttp);
+        assertResults(mIndex.search("RETRO"), mRetrofit);
+        assertResults(mIndex.search("http"), mOkHttp, mRetrofit);
+        // Prefixes must start at a word boundary
+        assertResults(mIndex.search("http2"));
+        assertResults(mIndex.search("ttp"));
+    }
+
+    @Test
+    public void matchesOwnerDescriptionAndLicense() {
+        assertResults(mIndex.search("square"), mOkHttp, mRetrofit, mPicasso);
+        assertResults(mIndex.search("credits"), mHomage);
+        assertResults(mIndex.search("mit"), mPicasso);
+        assertResults(mIndex.search("apache"), mHomage, mOkHttp, mRetrofit);
+    }
+
+    @Test
+    public void requiresEveryQueryWord() {
+        assertResults(mIndex.search("square client"), mOkHttp, mRetrofit);
+        assertResults(mIndex.search("client square type"), mRetrofit);
+        assertResults(mIndex.search("square credits"));
+        // A repeated word doesn't need to match twice
+        assertResults(mIndex.search("http http"), mOkHttp, mRetrofit);
+    }
+
+    @Test
+    public void repeatedSearchesAreIndependent() {
+        for (int i = 0; i < 3; i++) {
+            assertResults(mIndex.search("s"), mHomage, mOkHttp, mRetrofit, mPicasso);
+            assertResults(mIndex.search("sq"), mOkHttp, mRetrofit, mPicasso);
+            assertResults(mIndex.search("sq p"), mPicasso);
+            assertResults(mIndex.search("nothing"));
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void resultsAreUnmodifiable() {
+        mIndex.search("square").clear();
+    }
+
+
+    private static void assertResults(@NonNull List<Library> actual, @NonNull Library... expected) {
+        assertEquals(Arrays.asList(expected), actual);
+    }
+
+    @NonNull
+    static Library createLibrary(@NonNull String name,
+                                 @NonNull String owner,
+                                 @Nullable String description,
+                                 @NonNull String licenseName) {
+        Library library = new Library(name, null, "1.0.0", description, "2016", owner, null, null, null);
+        library.setLicense(new License(licenseName, "https://example.com/license", new SpannedString("")));
+        return library;
+    }
+}
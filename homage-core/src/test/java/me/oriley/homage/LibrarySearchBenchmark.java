@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage;
+
+import android.support.annotation.NonNull;
+import android.text.SpannedString;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Types queries one keystroke at a time into a search over 10,000 libraries. The work each keystroke does is checked
+ * by counting the index postings it reads, as timings vary too much between machines to assert on. Set the
+ * HOMAGE_BENCHMARK environment variable to also log how long the keystrokes take.
+ */
+public class LibrarySearchBenchmark {
+
+    private static final int LIBRARY_COUNT = 10000;
+    private static final int VOCABULARY_SIZE = 2000;
+
+    private static final int WARMUP_RUNS = 20;
+    private static final int MEASURED_RUNS = 20;
+
+    // Scanning every library's text would read at least one entry per library for every keystroke
+    private static final int MAX_AVERAGE_POSTINGS = LIBRARY_COUNT / 2;
+
+    private static final Logger LOG = Logger.getLogger(LibrarySearchBenchmark.class.getSimpleName());
+
+    private static final String[] SYLLABLES = {"an", "bo", "ca", "de", "el", "fi", "go", "ha", "in", "jo", "ka", "lu",
+            "ma", "ne", "or", "pi", "qu", "ra", "si", "to", "ur", "ve", "wi", "xo", "ya", "ze"};
+
+    private static final String[] LICENSES = {"Apache 2.0", "MIT License", "BSD 3-Clause", "BSD 2-Clause",
+            "GNU Lesser General Public License v3.0", "Creative Commons Zero 1.0"};
+
+    // Typed one character at a time, including short prefixes which match many words
+    private static final String[] QUERIES = {"android http client", "a", "square", "json parser apache",
+            "image loading library", "zz", "mit"};
+
+    private String[] mVocabulary;
+    private List<Library> mLibraries;
+    private List<String> mKeystrokes;
+    private LibraryIndex mIndex;
+
+
+    @Before
+    public void setUp() {
+        Random random = new Random(42);
+        mVocabulary = createVocabulary(random);
+        mLibraries = createLibraries(random);
+        mIndex = LibraryIndex.build(mLibraries);
+
+        mKeystrokes = new ArrayList<>();
+        for (String query : QUERIES) {
+            for (int i = 1; i <= query.length(); i++) {
+                mKeystrokes.add(query.substring(0, i));
+            }
+        }
+    }
+
+
+    @Test
+    public void keystrokesOnlyReadMatchingPostings() {
+        List<Set<String>> libraryTokens = new ArrayList<>(LIBRARY_COUNT);
+        for (Library library : mLibraries) {
+            libraryTokens.add(getTokens(library));
+        }
+
+        long visited = 0;
+        for (String keystroke : mKeystrokes) {
+            String[] queryTokens = LibraryIndex.tokenize(keystroke);
+            mIndex.search(queryTokens);
+
+            // Each library is read once for each of its words starting with each query word, and no more
+            int expected = 0;
+            for (String queryToken : queryTokens) {
+                for (Set<String> tokens : libraryTokens) {
+                    for (String token : tokens) {
+                        if (token.startsWith(queryToken)) {
+                            expected++;
+                        }
+                    }
+                }
+            }
+            assertEquals("postings read for \"" + keystroke + "\"", expected, mIndex.getLastSearchVisits());
+            visited += expected;
+        }
+
+        long average = visited / mKeystrokes.size();
+        assertTrue("keystrokes read " + average + " postings on average", average < MAX_AVERAGE_POSTINGS);
+    }
+
+    @Test
+    public void logKeystrokeTimes() {
+        assumeTrue(System.getenv("HOMAGE_BENCHMARK") != null);
+
+        for (int run = 0; run < WARMUP_RUNS; run++) {
+            for (String keystroke : mKeystrokes) {
+                search(keystroke);
+            }
+        }
+
+        long[] times = new long[mKeystrokes.size() * MEASURED_RUNS];
+        int count = 0;
+        int matched = 0;
+        for (int run = 0; run < MEASURED_RUNS; run++) {
+            for (String keystroke : mKeystrokes) {
+                long start = System.nanoTime();
+                matched += search(keystroke);
+                times[count++] = System.nanoTime() - start;
+            }
+        }
+
+        Arrays.sort(times);
+        LOG.info(String.format(Locale.US, "%d keystrokes: %.3f ms median, %.3f ms 95th, %.3f ms max, " +
+                        "%d matches per keystroke", mKeystrokes.size(), times[times.length / 2] / 1e6,
+                times[(int) (times.length * 0.95)] / 1e6, times[times.length - 1] / 1e6, matched / times.length));
+    }
+
+    @Test
+    public void generatedQueriesMatchLibraries() {
+        assertFalse(mIndex.search("a").isEmpty());
+        assertFalse(mIndex.search("android http").isEmpty());
+        assertTrue(mIndex.search("zz").isEmpty());
+    }
+
+
+    private int search(@NonNull String query) {
+        return mIndex.search(LibraryIndex.tokenize(query)).size();
+    }
+
+    @NonNull
+    private static Set<String> getTokens(@NonNull Library library) {
+        Set<String> tokens = new HashSet<>();
+        tokens.addAll(Arrays.asList(LibraryIndex.tokenize(library.getLibraryName())));
+        tokens.addAll(Arrays.asList(LibraryIndex.tokenize(library.getLibraryOwner())));
+        tokens.addAll(Arrays.asList(LibraryIndex.tokenize(library.getLibraryDescription())));
+        tokens.addAll(Arrays.asList(LibraryIndex.tokenize(library.getLicenseName())));
+        return tokens;
+    }
+
+    @NonNull
+    private static String[] createVocabulary(@NonNull Random random) {
+        String[] words = new String[VOCABULARY_SIZE];
+        String[] common = {"android", "http", "client", "square", "json", "parser", "image", "loading", "library",
+                "view", "support", "fast", "simple", "animation", "database"};
+        System.arraycopy(common, 0, words, 0, common.length);
+        for (int i = common.length; i < VOCABULARY_SIZE; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int j = 0, length = 2 + random.nextInt(3); j < length; j++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words[i] = word.toString();
+        }
+        return words;
+    }
+
+    @NonNull
+    private List<Library> createLibraries(@NonNull Random random) {
+        License[] licenses = new License[LICENSES.length];
+        for (int i = 0; i < LICENSES.length; i++) {
+            licenses[i] = new License(LICENSES[i], "https://example.com/license/" + i, new SpannedString(""));
+        }
+
+        List<Library> libraries = new ArrayList<>(LIBRARY_COUNT);
+        for (int i = 0; i < LIBRARY_COUNT; i++) {
+            Library library = new Library(capitalise(word(random)) + " " + capitalise(word(random)), null,
+                    "1." + random.nextInt(10), words(random, 8 + random.nextInt(8)), "2016",
+                    capitalise(mVocabulary[random.nextInt(200)]), null, null, null);
+            library.setLicense(licenses[random.nextInt(licenses.length)]);
+            libraries.add(library);
+        }
+        return libraries;
+    }
+
+    @NonNull
+    private String words(@NonNull Random random, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(word(random));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Picks common words more often, as natural text does.
+     */
+    @NonNull
+    private String word(@NonNull Random random) {
+        double skew = random.nextDouble();
+        return mVocabulary[(int) (skew * skew * VOCABULARY_SIZE)];
+    }
+
+    @NonNull
+    private static String capitalise(@NonNull String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
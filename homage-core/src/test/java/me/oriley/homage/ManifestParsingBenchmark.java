@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static me.oriley.homage.utils.IOUtils.UTF_8;
+import static me.oriley.homage.utils.IOUtils.closeQuietly;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the streaming JSON parser with the previous approach of reading the whole manifest into a string and
+ * parsing it into a JSONObject tree. Runs with Robolectric, as both parsers come from the Android framework.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ManifestParsingBenchmark {
+
+    private static final int LIBRARY_COUNT = 5000;
+
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 10;
+
+    private byte[] mManifest;
+
+
+    @Before
+    public void setUp() {
+        mManifest = createManifest(LIBRARY_COUNT);
+    }
+
+
+    @Test
+    public void streamingMatchesTreeParsing() throws Exception {
+        Library[] streamed = Homage.parseLibraries(new ByteArrayInputStream(mManifest));
+        List<Library> tree = parseTree(new ByteArrayInputStream(mManifest));
+
+        assertNotNull(streamed);
+        assertEquals(tree.size(), streamed.length);
+        for (int i = 0; i < streamed.length; i++) {
+            Library expected = tree.get(i);
+            Library actual = streamed[i];
+            assertEquals(expected.getLibraryName(), actual.getLibraryName());
+            assertEquals(expected.getLibraryIcon(), actual.getLibraryIcon());
+            assertEquals(expected.getLibraryVersion(), actual.getLibraryVersion());
+            assertEquals(expected.getLibraryDescription(), actual.getLibraryDescription());
+            assertEquals(expected.getLibraryYear(), actual.getLibraryYear());
+            assertEquals(expected.getLibraryOwner(), actual.getLibraryOwner());
+            assertEquals(expected.getLibraryOwnerUrl(), actual.getLibraryOwnerUrl());
+            assertEquals(expected.getLibraryUrl(), actual.getLibraryUrl());
+            assertEquals(expected.getLicenseCode(), actual.getLicenseCode());
+        }
+    }
+
+    @Test
+    public void streamingAllocatesLessThanTreeParsing() throws Exception {
+        Result tree = measure(new Parser() {
+            @Override
+            public int parse(@NonNull InputStream stream) throws Exception {
+                return parseTree(stream).size();
+            }
+        });
+        Result streaming = measure(new Parser() {
+            @Override
+            public int parse(@NonNull InputStream stream) throws Exception {
+                Library[] libraries = Homage.parseLibraries(stream);
+                return libraries != null ? libraries.length : 0;
+            }
+        });
+
+        System.out.println(String.format(Locale.US, "%d libraries, %d KB: JSONObject %s, JsonReader %s",
+                LIBRARY_COUNT, mManifest.length / 1024, tree, streaming));
+
+        // Timings vary too much between machines to assert on, but allocations don't
+        if (streaming.mAllocatedBytes >= 0 && tree.mAllocatedBytes >= 0) {
+            assertTrue("JsonReader allocated " + streaming.mAllocatedBytes + " bytes, JSONObject " +
+                    tree.mAllocatedBytes, streaming.mAllocatedBytes < tree.mAllocatedBytes);
+        }
+    }
+
+    @NonNull
+    private Result measure(@NonNull Parser parser) throws Exception {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            assertEquals(LIBRARY_COUNT, parser.parse(new ByteArrayInputStream(mManifest)));
+        }
+
+        long[] times = new long[MEASURED_RUNS];
+        long allocatedBefore = getAllocatedBytes();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            parser.parse(new ByteArrayInputStream(mManifest));
+            times[i] = System.nanoTime() - start;
+        }
+        long allocatedAfter = getAllocatedBytes();
+
+        long allocated = allocatedBefore >= 0 ? (allocatedAfter - allocatedBefore) / MEASURED_RUNS : -1;
+        return new Result(median(times), allocated);
+    }
+
+    /**
+     * @return bytes allocated by this thread so far, or -1 if the JVM can't tell
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static long median(@NonNull long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    @NonNull
+    private static byte[] createManifest(int count) {
+        StringBuilder builder = new StringBuilder("{\n  \"licenses\": [\n");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(",\n");
+            }
+            builder.append("    {\n")
+                    .append("      \"name\": \"Library ").append(i).append("\",\n")
+                    .append("      \"icon\": \"library_icon_").append(i).append("\",\n")
+                    .append("      \"version\": \"1.").append(i % 10).append(".0\",\n")
+                    .append("      \"description\": \"Does something \\\"useful\\\" with number ").append(i)
+                    .append(", unlike the others\",\n")
+                    .append("      \"year\": ").append(2000 + i % 17).append(",\n")
+                    .append("      \"owner\": \"Owner ").append(i % 100).append("\",\n")
+                    .append("      \"ownerUrl\": \"https://example.com/owner/").append(i % 100).append("\",\n")
+                    .append("      \"url\": \"https://example.com/library/").append(i).append("\",\n")
+                    .append("      \"license\": \"").append(i % 2 == 0 ? "apache2" : "mit").append("\"\n")
+                    .append("    }");
+        }
+        builder.append("\n  ]\n}\n");
+        return builder.toString().getBytes(UTF_8);
+    }
+
+    /**
+     * The previous parser, which read the whole manifest into memory before parsing it.
+     */
+    @NonNull
+    private static List<Library> parseTree(@NonNull InputStream stream) throws IOException, JSONException {
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(stream, UTF_8));
+            StringBuilder jsonBuilder = new StringBuilder();
+            for (String line; (line = reader.readLine()) != null; ) {
+                jsonBuilder.append(line).append('\n');
+            }
+
+            JSONArray array = new JSONObject(jsonBuilder.toString()).getJSONArray("licenses");
+            List<Library> libraries = new ArrayList<>(array.length());
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject json = array.getJSONObject(i);
+                libraries.add(new Library(
+                        getOptionalString(json, "name"),
+                        getOptionalString(json, "icon"),
+                        getOptionalString(json, "version"),
+                        getOptionalString(json, "description"),
+                        getOptionalString(json, "year"),
+                        getOptionalString(json, "owner"),
+                        getOptionalString(json, "ownerUrl"),
+                        getOptionalString(json, "url"),
+                        getOptionalString(json, "license")));
+            }
+            return libraries;
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    @Nullable
+    private static String getOptionalString(@NonNull JSONObject json, @NonNull String key) {
+        try {
+            return json.getString(key);
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+
+    private interface Parser {
+
+        int parse(@NonNull InputStream stream) throws Exception;
+    }
+
+    private static final class Result {
+
+        private final long mMedianNanos;
+
+        private final long mAllocatedBytes;
+
+
+        Result(long medianNanos, long allocatedBytes) {
+            mMedianNanos = medianNanos;
+            mAllocatedBytes = allocatedBytes;
+        }
+
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%.2f ms, %d KB allocated per parse", mMedianNanos / 1e6,
+                    mAllocatedBytes / 1024);
+        }
+    }
+}
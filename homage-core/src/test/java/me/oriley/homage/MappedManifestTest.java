@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static me.oriley.homage.BinaryManifest.*;
+import static me.oriley.homage.TestManifests.*;
+import static me.oriley.homage.utils.IOUtils.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MappedManifestTest {
+
+    @Test
+    public void matchesStreamedManifest() throws Exception {
+        byte[] manifest = createBinaryManifest(HOMAGE, UNICODE);
+        MappedManifest mapped = MappedManifest.create(ByteBuffer.wrap(manifest));
+        assertNotNull(mapped);
+
+        Library[] libraries = mapped.getLibraries();
+        Library[] streamed = read(new ByteArrayInputStream(manifest));
+        assertEquals(streamed.length, libraries.length);
+        for (int i = 0; i < libraries.length; i++) {
+            assertTrue(libraries[i].isMapped());
+            assertFalse(streamed[i].isMapped());
+            assertFields(new String[]{
+                    streamed[i].getLibraryName(),
+                    streamed[i].getLibraryIcon(),
+                    streamed[i].getLibraryVersion(),
+                    streamed[i].getLibraryDescription(),
+                    streamed[i].getLibraryYear(),
+                    streamed[i].getLibraryOwner(),
+                    streamed[i].getLibraryOwnerUrl(),
+                    streamed[i].getLibraryUrl(),
+                    streamed[i].getLicenseCode()}, libraries[i]);
+        }
+        assertFields(UNICODE, libraries[1]);
+    }
+
+    @Test
+    public void ignoresJson() throws Exception {
+        assertNull(MappedManifest.create(ByteBuffer.wrap("{\"licenses\": []}".getBytes(UTF_8))));
+        assertNull(MappedManifest.create(ByteBuffer.wrap(new byte[0])));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsCorruptHeader() throws Exception {
+        byte[] manifest = createBinaryManifest(HOMAGE);
+        ByteBuffer.wrap(manifest).putInt(8, 1000);
+        MappedManifest.create(ByteBuffer.wrap(manifest));
+    }
+
+    @Test
+    public void returnsNullForInvalidStrings() throws Exception {
+        byte[] manifest = createBinaryManifest(HOMAGE);
+        ByteBuffer buffer = ByteBuffer.wrap(manifest);
+        buffer.putInt(getRecordPosition(manifest, 0, FIELD_NAME), 1000);
+        // Point the icon at the first string, then move that string past the end of the data
+        buffer.putInt(getRecordPosition(manifest, 0, FIELD_ICON), 0);
+        buffer.putInt(HEADER_SIZE, manifest.length);
+
+        MappedManifest mapped = MappedManifest.create(buffer);
+        assertNotNull(mapped);
+        Library library = mapped.getLibraries()[0];
+        assertNull(library.getLibraryName());
+        assertNull(library.getLibraryIcon());
+        assertEquals(HOMAGE[FIELD_VERSION], library.getLibraryVersion());
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static me.oriley.homage.BinaryManifest.*;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Writes binary manifests the same way as the CompileHomageManifests task in gradle/homage.gradle.
+ */
+final class TestManifests {
+
+    static final String[] HOMAGE = fields("Homage", "homage", "1.0.0", "Credits screen", "2016", "Kane O'Riley",
+            "https://github.com/oriley-me", "https://github.com/oriley-me/homage", "apache2");
+
+    // Missing fields, a shared string and characters which modified UTF-8 encodes differently
+    static final String[] UNICODE = fields("Bibliothèque \u0000 书", null, null, "Ünïcödé 😀",
+            null, "Kane O'Riley", null, null, "mit");
+
+    private TestManifests() {
+        throw new IllegalAccessError("no instances");
+    }
+
+
+    /**
+     * @param libraries one array of {@link BinaryManifest#FIELD_COUNT} fields per library, in field order
+     */
+    @NonNull
+    static byte[] createBinaryManifest(@NonNull String[]... libraries) throws IOException {
+        Map<String, Integer> stringIndices = new LinkedHashMap<>();
+        List<Integer> records = new ArrayList<>();
+        for (String[] library : libraries) {
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                String value = library[field];
+                if (value == null) {
+                    records.add(NO_STRING);
+                    continue;
+                }
+                Integer index = stringIndices.get(value);
+                if (index == null) {
+                    index = stringIndices.size();
+                    stringIndices.put(value, index);
+                }
+                records.add(index);
+            }
+        }
+
+        ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+        DataOutputStream stringData = new DataOutputStream(stringBytes);
+        List<Integer> offsets = new ArrayList<>();
+        for (String string : stringIndices.keySet()) {
+            offsets.add(stringData.size());
+            stringData.writeUTF(string);
+        }
+        stringData.flush();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(libraries.length);
+        output.writeInt(stringIndices.size());
+        for (int offset : offsets) {
+            output.writeInt(offset);
+        }
+        for (int record : records) {
+            output.writeInt(record);
+        }
+        output.write(stringBytes.toByteArray());
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    @NonNull
+    static String[] fields(@Nullable String name,
+                           @Nullable String icon,
+                           @Nullable String version,
+                           @Nullable String description,
+                           @Nullable String year,
+                           @Nullable String owner,
+                           @Nullable String ownerUrl,
+                           @Nullable String url,
+                           @Nullable String license) {
+        return new String[]{name, icon, version, description, year, owner, ownerUrl, url, license};
+    }
+
+    static int getRecordPosition(@NonNull byte[] manifest, int library, int field) {
+        int stringCount = ByteBuffer.wrap(manifest).getInt(12);
+        return HEADER_SIZE + stringCount * 4 + (library * FIELD_COUNT + field) * 4;
+    }
+
+    static void assertFields(@NonNull String[] expected, @NonNull Library library) {
+        assertEquals(expected[FIELD_NAME], library.getLibraryName());
+        assertEquals(expected[FIELD_ICON], library.getLibraryIcon());
+        assertEquals(expected[FIELD_VERSION], library.getLibraryVersion());
+        assertEquals(expected[FIELD_DESCRIPTION], library.getLibraryDescription());
+        assertEquals(expected[FIELD_YEAR], library.getLibraryYear());
+        assertEquals(expected[FIELD_OWNER], library.getLibraryOwner());
+        assertEquals(expected[FIELD_OWNER_URL], library.getLibraryOwnerUrl());
+        assertEquals(expected[FIELD_URL], library.getLibraryUrl());
+        assertEquals(expected[FIELD_LICENSE], library.getLicenseCode());
+    }
+}
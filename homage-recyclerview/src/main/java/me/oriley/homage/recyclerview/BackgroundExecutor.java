@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage.recyclerview;
+
+import android.os.Process;
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs work for rows being bound, separately from AsyncTask's shared executor. The most recently queued work runs
+ * first, and once the queue is full the oldest is dropped rather than rejecting new work, since during a fling the
+ * rows it was queued for have usually been scrolled past.
+ */
+final class BackgroundExecutor extends ThreadPoolExecutor {
+
+    private static final long KEEP_ALIVE_SECONDS = 1;
+
+
+    /**
+     * Work which should be told if it's dropped, so anything waiting on it can be cleaned up. This is called on the
+     * thread queueing the work which replaced it.
+     */
+    interface DroppableTask extends Runnable {
+
+        void onDropped();
+    }
+
+
+    /**
+     * @param capacity how many tasks may wait for a thread before the oldest is dropped
+     */
+    BackgroundExecutor(@NonNull String name, int threads, int capacity) {
+        super(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LifoQueue(capacity),
+                new BackgroundThreadFactory(name), new DropOldestPolicy());
+        allowCoreThreadTimeOut(true);
+    }
+
+
+    private static final class LifoQueue extends LinkedBlockingDeque<Runnable> {
+
+        LifoQueue(int capacity) {
+            super(capacity);
+        }
+
+
+        @Override
+        public boolean offer(Runnable runnable) {
+            return offerFirst(runnable);
+        }
+    }
+
+    private static final class DropOldestPolicy implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                return;
+            }
+
+            Runnable oldest = ((LifoQueue) executor.getQueue()).pollLast();
+            if (oldest instanceof DroppableTask) {
+                ((DroppableTask) oldest).onDropped();
+            }
+            executor.execute(runnable);
+        }
+    }
+
+    private static final class BackgroundThreadFactory implements ThreadFactory {
+
+        @NonNull
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        @NonNull
+        private final String mName;
+
+
+        BackgroundThreadFactory(@NonNull String name) {
+            mName = name;
+        }
+
+
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, mName + " #" + mCount.incrementAndGet());
+        }
+    }
+}
@@ -16,13 +16,13 @@
 
 package me.oriley.homage.recyclerview;
 
+import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
-import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
 import me.oriley.homage.Homage;
 
-public class HomageAdapter extends HomageAdapterBase {
+public class HomageAdapter extends HomageListAdapterBase {
 
     public HomageAdapter(@NonNull Homage homage, @NonNull HomageView.ExtraInfoMode extraInfoMode, boolean showIcons) {
         super(homage, extraInfoMode, showIcons);
@@ -32,12 +32,15 @@ public class HomageAdapter extends HomageAdapterBase {
         super(homage, extraInfoMode, showIcons, dark);
     }
 
+    @LayoutRes
+    @Override
+    int getLayoutResource() {
+        return mDark ? R.layout.homage_recycler_item_dark : R.layout.homage_recycler_item_light;
+    }
+
     @Override
     public HomageViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
-        HomageView view = (HomageView) LayoutInflater.from(parent.getContext())
-                .inflate(mDark ? R.layout.homage_recycler_item_dark : R.layout.homage_recycler_item_light, parent, false);
-        view.setExtraInfoMode(mExtraInfoMode);
-        view.setShowIcons(mShowIcons);
-        return new HomageViewHolder(view, view);
+        HomageView view = (HomageView) inflateRow(parent);
+        return createHolder(view, view);
     }
 }
@@ -16,64 +16,254 @@
 
 package me.oriley.homage.recyclerview;
 
+import android.content.Context;
+import android.os.Build;
+import android.support.annotation.LayoutRes;
+import android.support.annotation.MainThread;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LongSparseArray;
 import android.support.v7.widget.RecyclerView;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
 import android.view.View;
+import android.view.ViewGroup;
 
-import java.util.List;
-
-import me.oriley.homage.Homage;
 import me.oriley.homage.Library;
+import me.oriley.homage.recyclerview.HomageExpandableView.AnimationMode;
 import me.oriley.homage.recyclerview.HomageView.ExtraInfoMode;
 
+/**
+ * Creates and binds rows, leaving where their libraries come from to subclasses.
+ */
 @SuppressWarnings({"unused", "WeakerAccess"})
 abstract class HomageAdapterBase extends RecyclerView.Adapter<HomageViewHolder> {
 
     @NonNull
-    protected final Homage mHomage;
+    protected final ExtraInfoMode mExtraInfoMode;
+
+    protected final boolean mShowIcons;
+
+    protected final boolean mDark;
 
     @NonNull
-    protected final List<Library> mLibraries;
+    private AnimationMode mAnimationMode = AnimationMode.RESIZE;
 
+    // IDs of expanded rows, so expansion survives recycling and updates
     @NonNull
-    protected final ExtraInfoMode mExtraInfoMode;
+    private final LongSparseArray<Boolean> mExpandedIds = new LongSparseArray<>();
 
-    protected final boolean mShowIcons;
+    @Nullable
+    private RecyclerView mRecyclerView;
 
-    protected final boolean mDark;
+    @Nullable
+    private HomageRowInflater mRowInflater;
 
+    private int mAsyncRows;
+
+    // Shared by all rows in POPUP mode, and dismissed when the adapter is detached
+    @Nullable
+    private HomagePopup mPopup;
 
-    public HomageAdapterBase(@NonNull Homage homage, @NonNull ExtraInfoMode extraInfoMode, boolean showIcons) {
-        this(homage, extraInfoMode, showIcons, false);
-    }
 
-    public HomageAdapterBase(@NonNull Homage homage, @NonNull ExtraInfoMode extraInfoMode, boolean showIcons, boolean dark) {
-        mHomage = homage;
-        mLibraries = mHomage.getLibraries();
+    public HomageAdapterBase(@NonNull ExtraInfoMode extraInfoMode, boolean showIcons, boolean dark) {
         mExtraInfoMode = extraInfoMode;
         mShowIcons = showIcons;
         mDark = dark;
     }
 
 
-    @Override
-    public void onBindViewHolder(final HomageViewHolder holder, int position) {
-        holder.setLibrary(getItem(position));
+    /**
+     * Sets how expandable rows animate. Set it before attaching the adapter, rows already created keep the previous
+     * mode.
+     */
+    public void setAnimationMode(@NonNull AnimationMode animationMode) {
+        mAnimationMode = animationMode;
+    }
+
+    /**
+     * Forgets expanded rows which are no longer shown.
+     */
+    void pruneExpandedIds(@NonNull long[] ids) {
+        for (int i = mExpandedIds.size() - 1; i >= 0; i--) {
+            long expandedId = mExpandedIds.keyAt(i);
+            boolean found = false;
+            for (long id : ids) {
+                if (id == expandedId) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                mExpandedIds.removeAt(i);
+            }
+        }
+    }
+
+    /**
+     * Keeps up to this many rows inflated ahead of time on a background thread, so that scrolling doesn't have to stop
+     * and inflate them. If none are ready when one is needed, it is inflated on the main thread as usual. Pass 0 to
+     * disable, which is the default.
+     *
+     * Only supported on Lollipop and above, where themes set in layouts are applied without the activity's inflater.
+     * If a row can't be inflated off the main thread, for example because it contains a view which needs a
+     * {@link android.os.Looper}, background inflation is turned off for good and rows are inflated on the main thread.
+     * {@link #isAsyncInflationEnabled()} reports whether that has happened.
+     */
+    @MainThread
+    public void setAsyncInflation(int readyRows) {
+        mAsyncRows = Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP ? Math.max(readyRows, 0) : 0;
+        updateRowInflater();
+    }
+
+    /**
+     * @return whether rows are inflated ahead of time, which is false if it was never enabled, isn't supported or a row
+     * failed to inflate in the background
+     */
+    @MainThread
+    public boolean isAsyncInflationEnabled() {
+        return mAsyncRows > 0 && (mRowInflater == null || !mRowInflater.hasFailed());
+    }
+
+    private void updateRowInflater() {
+        if (mRowInflater != null) {
+            if (mRowInflater.hasFailed()) {
+                // The layout will fail again, so don't retry when reattached
+                mAsyncRows = 0;
+            }
+            mRowInflater.release();
+            mRowInflater = null;
+        }
+        if (mRecyclerView != null && mAsyncRows > 0) {
+            mRowInflater = new HomageRowInflater(mRecyclerView, getLayoutResource(), mAsyncRows);
+            mRowInflater.fill();
+        }
+    }
+
+    /**
+     * Returns a row inflated ahead of time if one is ready, otherwise inflates one.
+     */
+    @NonNull
+    protected View inflateRow(@NonNull ViewGroup parent) {
+        View view = mRowInflater != null ? mRowInflater.poll() : null;
+        if (view == null) {
+            view = LayoutInflater.from(parent.getContext()).inflate(getLayoutResource(), parent, false);
+        }
+        return view;
+    }
+
+    /**
+     * Configures a newly inflated row and creates its holder. Listeners are created once here rather than on every
+     * bind, so binding a row doesn't allocate.
+     */
+    @NonNull
+    protected HomageViewHolder createHolder(@NonNull View itemView, @NonNull HomageView view) {
+        return createHolder(itemView, (HomageRow) view);
+    }
+
+    @NonNull
+    HomageViewHolder createHolder(@NonNull View itemView, @NonNull HomageRow row) {
+        row.setExtraInfoMode(mExtraInfoMode);
+        row.setShowIcons(mShowIcons);
+        row.setAnimationMode(mAnimationMode);
+
+        final HomageViewHolder holder = new HomageViewHolder(itemView, row);
         holder.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                holder.showExtraInfo();
+                HomageAdapterBase adapter = holder.getAdapter();
+                if (adapter != null) {
+                    adapter.onRowClicked(holder, v);
+                }
             }
         });
+        return holder;
     }
 
-    @NonNull
-    public Library getItem(int position) {
-        return mLibraries.get(position);
+    private void onRowClicked(@NonNull HomageViewHolder holder, @NonNull View view) {
+        // Ignore clicks while the row is being removed or rebound
+        int position = holder.getAdapterPosition();
+        if (position == RecyclerView.NO_POSITION || holder.getRow().getLibrary() == null) {
+            return;
+        }
+
+        if (mExtraInfoMode == ExtraInfoMode.POPUP) {
+            showPopup(holder, view.getContext());
+            return;
+        }
+
+        holder.showExtraInfo();
+        if (mExtraInfoMode == ExtraInfoMode.EXPANDABLE) {
+            if (holder.isExpanded()) {
+                mExpandedIds.put(getItemId(position), Boolean.TRUE);
+            } else {
+                mExpandedIds.remove(getItemId(position));
+            }
+        }
+    }
+
+    private void showPopup(@NonNull HomageViewHolder holder, @NonNull Context viewContext) {
+        HomageRow row = holder.getRow();
+        Library library = row.getLibrary();
+        LibraryDisplay display = row.getLibraryDisplay();
+        if (library == null || display == null) {
+            return;
+        }
+
+        if (mPopup == null) {
+            // Rows may each have their own themed context, so key the popup to the host instead, themed as the rows
+            // are since the popup layout uses the same attributes
+            Context context = mRecyclerView != null ? mRecyclerView.getContext() : viewContext;
+            int theme = mDark ? R.style.Homage_Dark : R.style.Homage_Light;
+            mPopup = new HomagePopup(new ContextThemeWrapper(context, theme));
+        }
+        mPopup.show(library, display);
     }
 
     @Override
-    public int getItemCount() {
-        return mLibraries.size();
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        mRecyclerView = recyclerView;
+        updateRowInflater();
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        mRecyclerView = null;
+        updateRowInflater();
+        if (mPopup != null) {
+            mPopup.dismiss();
+            mPopup = null;
+        }
+    }
+
+    /**
+     * Binds a row, or clears it if the library isn't available yet.
+     */
+    void bindHolder(@NonNull HomageViewHolder holder,
+                    int position,
+                    @Nullable Library library,
+                    @Nullable LibraryDisplay display) {
+        holder.setAdapter(this);
+        holder.setLibrary(library, display);
+        if (mExtraInfoMode == ExtraInfoMode.EXPANDABLE) {
+            // Skip the ID lookup in the common case of nothing expanded
+            holder.setExpanded(library != null && mExpandedIds.size() > 0 &&
+                    mExpandedIds.get(getItemId(position)) != null);
+        }
+    }
+
+    @Nullable
+    RecyclerView getRecyclerView() {
+        return mRecyclerView;
+    }
+
+    @LayoutRes
+    abstract int getLayoutResource();
+
+    @Override
+    public int getItemViewType(int position) {
+        return HomageViewPool.getViewType(getLayoutResource(), mExtraInfoMode, mShowIcons, mAnimationMode);
     }
-}
\ No newline at end of file
+}
@@ -16,14 +16,14 @@
 
 package me.oriley.homage.recyclerview;
 
+import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
 import me.oriley.homage.Homage;
 
-public class HomageCardAdapter extends HomageAdapterBase {
+public class HomageCardAdapter extends HomageListAdapterBase {
 
 
     public HomageCardAdapter(@NonNull Homage homage, @NonNull HomageView.ExtraInfoMode extraInfoMode, boolean showIcons) {
@@ -35,13 +35,16 @@ public class HomageCardAdapter extends HomageAdapterBase {
     }
 
 
+    @LayoutRes
+    @Override
+    int getLayoutResource() {
+        return mDark ? R.layout.homage_recycler_card_dark : R.layout.homage_recycler_card_light;
+    }
+
     @Override
     public HomageViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext())
-                .inflate(mDark ? R.layout.homage_recycler_card_dark : R.layout.homage_recycler_card_light, parent, false);
+        View view = inflateRow(parent);
         HomageView homage = (HomageView) view.findViewById(R.id.homage_view);
-        homage.setExtraInfoMode(mExtraInfoMode);
-        homage.setShowIcons(mShowIcons);
-        return new HomageViewHolder(view, homage);
+        return createHolder(view, homage);
     }
 }
@@ -19,13 +19,18 @@ package me.oriley.homage.recyclerview;
 import android.animation.Animator;
 import android.animation.ValueAnimator;
 import android.content.Context;
+import android.graphics.Rect;
+import android.os.Build;
 import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
 import android.text.Spanned;
 import android.text.TextUtils;
 import android.util.AttributeSet;
+import android.view.LayoutInflater;
 import android.view.View;
+import android.view.ViewParent;
 import android.view.ViewStub;
 import android.view.animation.AccelerateDecelerateInterpolator;
 import android.widget.FrameLayout;
@@ -37,22 +42,51 @@ import static android.view.View.MeasureSpec.UNSPECIFIED;
 @SuppressWarnings({"WeakerAccess", "unused"})
 public abstract class HomageExpandableView extends FrameLayout {
 
+    public enum AnimationMode {
+        /**
+         * Animates the height of the expanded view, which lays out the whole list on every frame.
+         */
+        RESIZE,
+
+        /**
+         * Lays out the final height once and reveals the expanded view in place, while the containing
+         * {@link RecyclerView} animates the surrounding rows.
+         */
+        REVEAL
+    }
+
     private static final int EXPAND_ANIMATION_MILLIS = 250;
 
-    @NonNull
+    // Only inflated when a collapsed layout is used, views which draw their own collapsed state don't need them
+    @Nullable
     private ViewStub mCollapsedStub;
 
-    @NonNull
+    @Nullable
     private ViewStub mExpandedStub;
 
-    @NonNull
+    @Nullable
     private View mCollapsedView;
 
-    @NonNull
+    @LayoutRes
+    private int mExpandedLayoutResource;
+
+    // Inflated on first expand, rows which are never expanded don't pay for it
+    @Nullable
     private View mExpandedView;
 
+    @NonNull
+    private final Rect mClipBounds = new Rect();
+
+    @NonNull
+    private AnimationMode mAnimationMode = AnimationMode.RESIZE;
+
+    @Nullable
+    private ValueAnimator mAnimator;
+
     private boolean mAnimating;
 
+    private boolean mExpanded;
+
 
     public HomageExpandableView(@NonNull Context context) {
         this(context, null);
@@ -64,17 +98,17 @@ public abstract class HomageExpandableView extends FrameLayout {
 
     public HomageExpandableView(@NonNull Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        View.inflate(context, R.layout.homage_expandable_card_view, this);
-        mCollapsedStub = (ViewStub) findViewById(R.id.homage_expandable_card_view_collapsed_stub);
-        mExpandedStub = (ViewStub) findViewById(R.id.homage_expandable_card_view_expanded_stub);
-
-        mCollapsedView = mCollapsedStub;
-        mExpandedView = mExpandedStub;
     }
 
 
     protected void setCollapsedLayoutResource(@LayoutRes int layoutResource) {
-        if (mCollapsedStub.getLayoutResource() != layoutResource) {
+        if (mCollapsedView == null) {
+            if (mCollapsedStub == null) {
+                View.inflate(getContext(), R.layout.homage_expandable_card_view, this);
+                mCollapsedStub = (ViewStub) findViewById(R.id.homage_expandable_card_view_collapsed_stub);
+                mExpandedStub = (ViewStub) findViewById(R.id.homage_expandable_card_view_expanded_stub);
+            }
+
             mCollapsedStub.setLayoutResource(layoutResource);
             mCollapsedView = mCollapsedStub.inflate();
             onCollapsedViewInflated(mCollapsedView);
@@ -82,16 +116,32 @@ public abstract class HomageExpandableView extends FrameLayout {
     }
 
     protected void setExpandedLayoutResource(@LayoutRes int layoutResource) {
-        if (mExpandedStub.getLayoutResource() != layoutResource) {
-            mExpandedStub.setLayoutResource(layoutResource);
-            mExpandedView = mExpandedStub.inflate();
-            initialiseExpandedView();
+        if (mExpandedView == null) {
+            mExpandedLayoutResource = layoutResource;
+        }
+    }
+
+    @NonNull
+    private View inflateExpandedView() {
+        View expandedView = mExpandedView;
+        if (expandedView == null) {
+            if (mExpandedStub != null) {
+                mExpandedStub.setLayoutResource(mExpandedLayoutResource);
+                expandedView = mExpandedStub.inflate();
+            } else {
+                // No collapsed layout, so the expanded view is added directly for the subclass to position
+                expandedView = LayoutInflater.from(getContext()).inflate(mExpandedLayoutResource, this, false);
+                addView(expandedView);
+            }
+            mExpandedView = expandedView;
+            resetExpandedState();
+            onExpandedViewInflated(expandedView);
         }
+        return expandedView;
     }
 
-    private void initialiseExpandedView() {
-        resetExpandedState();
-        onExpandedViewInflated(mExpandedView);
+    protected boolean isExpandedViewInflated() {
+        return mExpandedView != null;
     }
 
     protected abstract void onCollapsedViewInflated(@NonNull View view);
@@ -99,9 +149,12 @@ public abstract class HomageExpandableView extends FrameLayout {
     protected abstract void onExpandedViewInflated(@NonNull View view);
 
     protected void resetExpandedState() {
-        mExpandedView.setEnabled(false);
-        mExpandedView.getLayoutParams().height = 0;
-        mExpandedView.setVisibility(View.GONE);
+        mExpanded = false;
+        if (mExpandedView != null) {
+            mExpandedView.setEnabled(false);
+            mExpandedView.getLayoutParams().height = 0;
+            mExpandedView.setVisibility(View.GONE);
+        }
     }
 
     public void toggleExpanded() {
@@ -109,17 +162,30 @@ public abstract class HomageExpandableView extends FrameLayout {
             return;
         }
 
-        final boolean expanding = mExpandedView.getVisibility() != VISIBLE;
+        final View expandedView = inflateExpandedView();
+        final boolean expanding = expandedView.getVisibility() != VISIBLE;
+        mExpanded = expanding;
+        if (expanding) {
+            onExpand();
+        }
+        if (mAnimationMode == AnimationMode.REVEAL) {
+            performReveal(expandedView, expanding);
+            return;
+        }
+
         if (expanding) {
-            mExpandedView.setVisibility(View.VISIBLE);
-            mExpandedView.setEnabled(true);
+            expandedView.setVisibility(View.VISIBLE);
+            expandedView.setEnabled(true);
         }
 
         // Note: Must post to container so that the layout can be measured
-        mExpandedView.post(new Runnable() {
+        expandedView.post(new Runnable() {
             @Override
             public void run() {
-                performAnimation(mExpandedView, expanding);
+                // Skip if the state was set directly in the meantime, e.g. by rebinding
+                if (mExpanded == expanding) {
+                    performAnimation(expandedView, expanding);
+                }
             }
         });
     }
@@ -158,34 +224,175 @@ public abstract class HomageExpandableView extends FrameLayout {
                     expandedLayout.setEnabled(false);
                 }
                 expandedLayout.setLayerType(View.LAYER_TYPE_NONE, null);
+                mAnimator = null;
                 mAnimating = false;
             }
         });
 
+        mAnimator = valueAnimator;
         valueAnimator.start();
     }
 
+    private void performReveal(@NonNull final View expandedLayout, final boolean expanding) {
+        if (expanding) {
+            // Single layout pass at the final height, the RecyclerView moves the rows below into place
+            requestItemAnimations();
+            expandedLayout.getLayoutParams().height = LayoutParams.WRAP_CONTENT;
+            expandedLayout.setAlpha(0f);
+            expandedLayout.setVisibility(View.VISIBLE);
+            expandedLayout.setEnabled(true);
+        }
+
+        expandedLayout.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        ValueAnimator valueAnimator = ValueAnimator.ofFloat(expanding ? 0f : 1f, expanding ? 1f : 0f);
+
+        valueAnimator.setDuration(EXPAND_ANIMATION_MILLIS);
+        valueAnimator.setInterpolator(new AccelerateDecelerateInterpolator());
+        valueAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                float currentValue = (Float) animation.getAnimatedValue();
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+                    mClipBounds.set(0, 0, expandedLayout.getWidth(), (int) (currentValue * expandedLayout.getHeight()));
+                    expandedLayout.setClipBounds(mClipBounds);
+                }
+                expandedLayout.setAlpha(currentValue);
+                onExpandedAnimationUpdate(currentValue);
+            }
+        });
+        valueAnimator.addListener(new SimpleAnimatorListener() {
+            @Override
+            public void onAnimationStart(Animator animation) {
+                mAnimating = true;
+            }
+
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+                    expandedLayout.setClipBounds(null);
+                }
+                if (!expanding) {
+                    requestItemAnimations();
+                    expandedLayout.getLayoutParams().height = 0;
+                    expandedLayout.setVisibility(View.GONE);
+                    expandedLayout.setEnabled(false);
+                }
+                expandedLayout.setLayerType(View.LAYER_TYPE_NONE, null);
+                mAnimator = null;
+                mAnimating = false;
+            }
+        });
+
+        mAnimator = valueAnimator;
+        valueAnimator.start();
+    }
+
+    private void requestItemAnimations() {
+        ViewParent parent = getParent();
+        while (parent != null && !(parent instanceof RecyclerView)) {
+            parent = parent.getParent();
+        }
+
+        if (parent != null) {
+            RecyclerView.LayoutManager layoutManager = ((RecyclerView) parent).getLayoutManager();
+            if (layoutManager != null) {
+                layoutManager.requestSimpleAnimationsInNextLayout();
+            }
+        }
+    }
+
+    /**
+     * Returns whether the view is expanded, or is animating towards being expanded.
+     */
+    public boolean isExpanded() {
+        return mExpanded;
+    }
+
+    /**
+     * Expands or collapses immediately without animating, for restoring state when the view is rebound.
+     */
+    public void setExpanded(boolean expanded) {
+        if (mAnimator != null) {
+            mAnimator.cancel();
+        }
+
+        if (expanded) {
+            View expandedView = inflateExpandedView();
+            mExpanded = true;
+            onExpand();
+            expandedView.getLayoutParams().height = LayoutParams.WRAP_CONTENT;
+            expandedView.setAlpha(1f);
+            expandedView.setVisibility(View.VISIBLE);
+            expandedView.setEnabled(true);
+            expandedView.requestLayout();
+            onExpandedAnimationUpdate(1f);
+        } else {
+            resetExpandedState();
+            onExpandedAnimationUpdate(0f);
+        }
+    }
+
+    public void setAnimationMode(@NonNull AnimationMode animationMode) {
+        mAnimationMode = animationMode;
+    }
+
+    @NonNull
+    public AnimationMode getAnimationMode() {
+        return mAnimationMode;
+    }
+
+    /**
+     * @return the inflated collapsed layout, or this view if it draws its collapsed state itself
+     */
     @NonNull
     protected View getCollapsedView() {
-        return mCollapsedView;
+        return mCollapsedView != null ? mCollapsedView : this;
     }
 
+    /**
+     * Returns the expanded view, inflating it first if the row hasn't been expanded yet.
+     */
     @NonNull
     protected View getExpandedView() {
+        return inflateExpandedView();
+    }
+
+    @Nullable
+    View getInflatedExpandedView() {
         return mExpandedView;
     }
 
+    /**
+     * Called before the expanded view is shown, once its height is next measured.
+     */
+    protected void onExpand() {
+        // Override if necessary
+    }
+
     protected void onExpandedAnimationUpdate(float level) {
         // Override if necessary
     }
 
-    protected void updateTextView(@NonNull TextView view, @Nullable Spanned text) {
+    protected void updateTextView(@NonNull TextView view, @Nullable CharSequence text) {
         view.setText(text);
         view.setVisibility(!TextUtils.isEmpty(text) ? VISIBLE : GONE);
     }
 
+    /**
+     * @deprecated rows now bind every text through {@link #updateTextView(TextView, CharSequence)}, override that
+     * instead
+     */
+    @Deprecated
+    protected void updateTextView(@NonNull TextView view, @Nullable Spanned text) {
+        updateTextView(view, (CharSequence) text);
+    }
+
+    /**
+     * @deprecated rows now bind every text through {@link #updateTextView(TextView, CharSequence)}, override that
+     * instead
+     */
+    @Deprecated
     protected void updateTextView(@NonNull TextView view, @Nullable String text) {
-        view.setText(text);
-        view.setVisibility(!TextUtils.isEmpty(text) ? VISIBLE : GONE);
+        updateTextView(view, (CharSequence) text);
     }
 }
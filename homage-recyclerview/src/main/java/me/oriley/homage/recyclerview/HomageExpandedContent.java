@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage.recyclerview;
+
+import android.graphics.Typeface;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.Spanned;
+import android.text.TextUtils;
+import android.view.View;
+import android.widget.TextView;
+
+import me.oriley.homage.Library;
+
+import static me.oriley.homage.utils.ObjectUtils.validateNonNull;
+
+/**
+ * Views within an inflated homage_view_expanded_layout, shared by the row views which expand in place.
+ */
+final class HomageExpandedContent {
+
+    @NonNull
+    private final TextView mDescription;
+
+    @NonNull
+    private final TextView mLicenseName;
+
+    @NonNull
+    private final TextView mLicenseRights;
+
+    @NonNull
+    private final LicenseTextView mLicenseDescription;
+
+    @NonNull
+    private final View mLicenseHolder;
+
+    @Nullable
+    private Library mLibrary;
+
+    // Set while the license is being prepared in the background, and the body is still empty
+    private boolean mLicensePending;
+
+    @NonNull
+    private final Runnable mLicensePreparedCallback = new Runnable() {
+        @Override
+        public void run() {
+            Library library = mLibrary;
+            if (mLicensePending && library != null) {
+                Spanned licenseDescription = library.peekLicenseDescription();
+                if (licenseDescription != null) {
+                    bindLicense(library, licenseDescription);
+                }
+            }
+        }
+    };
+
+
+    HomageExpandedContent(@NonNull View view) {
+        mDescription = (TextView) view.findViewById(R.id.homage_view_expanded_description);
+        mLicenseName = (TextView) view.findViewById(R.id.homage_view_expanded_license_name);
+        mLicenseRights = (TextView) view.findViewById(R.id.homage_view_expanded_license_rights);
+        mLicenseDescription = (LicenseTextView) view.findViewById(R.id.homage_view_expanded_license_description);
+        mLicenseHolder = view.findViewById(R.id.homage_view_expanded_license_holder);
+
+        validateNonNull(mDescription, mLicenseName, mLicenseRights, mLicenseDescription, mLicenseHolder);
+
+        mLicenseName.setTypeface(Typeface.MONOSPACE, Typeface.BOLD);
+        mLicenseRights.setTypeface(Typeface.MONOSPACE, Typeface.BOLD_ITALIC);
+        mLicenseDescription.setTypeface(Typeface.MONOSPACE);
+    }
+
+
+    /**
+     * Binds the library, leaving its license body to be filled in once it has been prepared in the background. Call
+     * {@link #showLicense()} before the content is shown.
+     */
+    void bind(@NonNull Library library, @NonNull LibraryDisplay display) {
+        mLibrary = library;
+        setText(mDescription, display.description);
+        setText(mLicenseRights, display.rights);
+        bindLicense(library, LicenseLayoutCache.get().prepare(library, mLicenseDescription.getPaint(), 0,
+                mLicensePreparedCallback));
+    }
+
+    /**
+     * Fills in the license body now if it's still being prepared, parsing and laying it out on this thread if
+     * necessary.
+     */
+    void showLicense() {
+        if (mLicensePending && mLibrary != null) {
+            bindLicense(mLibrary, mLibrary.getLicenseDescription());
+        }
+    }
+
+    private void bindLicense(@NonNull Library library, @Nullable Spanned licenseDescription) {
+        String licenseName = library.getLicenseName();
+        mLicensePending = licenseDescription == null;
+
+        setText(mLicenseName, licenseName);
+        mLicenseDescription.setText(licenseDescription);
+        mLicenseDescription.setVisibility(!TextUtils.isEmpty(licenseDescription) ? View.VISIBLE : View.GONE);
+
+        boolean hasLicense = !TextUtils.isEmpty(licenseName) || !TextUtils.isEmpty(licenseDescription);
+        mLicenseHolder.setVisibility(hasLicense ? View.VISIBLE : View.GONE);
+    }
+
+    private static void setText(@NonNull TextView view, @Nullable CharSequence text) {
+        view.setText(text);
+        view.setVisibility(!TextUtils.isEmpty(text) ? View.VISIBLE : View.GONE);
+    }
+}
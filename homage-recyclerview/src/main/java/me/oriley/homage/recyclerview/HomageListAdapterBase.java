@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage.recyclerview;
+
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.content.ContextCompat;
+import android.support.v7.widget.RecyclerView;
+import android.text.TextUtils;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import me.oriley.homage.Homage;
+import me.oriley.homage.Library;
+import me.oriley.homage.LibraryIndex;
+import me.oriley.homage.recyclerview.HomageView.ExtraInfoMode;
+
+/**
+ * Displays a list of libraries, which can be replaced and filtered.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+abstract class HomageListAdapterBase extends HomageAdapterBase {
+
+    @NonNull
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+    private static final String[] NO_TERMS = new String[0];
+
+    // Rebinds rows in place when only their highlighting changes, rather than animating a change
+    private static final Object PAYLOAD_HIGHLIGHT = new Object();
+
+    @NonNull
+    protected final Homage mHomage;
+
+    @NonNull
+    protected List<Library> mLibraries;
+
+    // Libraries before filtering, mLibraries holds those currently displayed
+    @NonNull
+    private List<Library> mAllLibraries;
+
+    @Nullable
+    private String mFilter;
+
+    @NonNull
+    private String[] mFilterTerms = NO_TERMS;
+
+    // Built for mAllLibraries on the first search
+    @Nullable
+    private LibraryIndex mIndex;
+
+    // Formatted as rows are first bound, keyed by instance since libraries don't define equality
+    @NonNull
+    private final Map<Library, LibraryDisplay> mDisplays = new IdentityHashMap<>();
+
+    // Highlighted copies of displays for the current filter, created as rows are bound
+    @NonNull
+    private final Map<Library, LibraryDisplay> mHighlightedDisplays = new IdentityHashMap<>();
+
+    // IDs of mLibraries, calculated in the background once attached or with the first update
+    @Nullable
+    private long[] mIds;
+
+    private int mUpdateGeneration;
+
+
+    public HomageListAdapterBase(@NonNull Homage homage, @NonNull ExtraInfoMode extraInfoMode, boolean showIcons) {
+        this(homage, extraInfoMode, showIcons, false);
+    }
+
+    public HomageListAdapterBase(@NonNull Homage homage, @NonNull ExtraInfoMode extraInfoMode, boolean showIcons, boolean dark) {
+        super(extraInfoMode, showIcons, dark);
+        mHomage = homage;
+        mLibraries = mHomage.getLibraries();
+        mAllLibraries = mLibraries;
+    }
+
+
+    /**
+     * Replaces the displayed libraries, for example with those passed to {@link Homage.Callback}. The difference is
+     * calculated in the background and only changed rows are rebound, keeping scroll position and expanded rows. Any
+     * filter is applied to the new libraries.
+     */
+    @MainThread
+    public void setLibraries(@NonNull List<Library> libraries) {
+        update(libraries, mFilter);
+    }
+
+    /**
+     * Only displays libraries matching the query, with the matching words highlighted. Each word of the query must
+     * start a word in the library's name, owner, description or license name. Pass null or an empty query to show
+     * all libraries again.
+     *
+     * Searching is done in the background, and rows are added and removed as for {@link #setLibraries(List)}, so
+     * this can be called on every keystroke.
+     */
+    @MainThread
+    public void setFilter(@Nullable String query) {
+        String filter = TextUtils.isEmpty(query) ? null : query;
+        if (!TextUtils.equals(filter, mFilter)) {
+            update(mAllLibraries, filter);
+        }
+    }
+
+    @Nullable
+    public String getFilter() {
+        return mFilter;
+    }
+
+    @MainThread
+    private void update(@NonNull final List<Library> allLibraries, @Nullable final String filter) {
+        final int generation = ++mUpdateGeneration;
+        final List<Library> oldLibraries = mLibraries;
+        final long[] currentIds = mIds;
+        final Homage homage = mHomage;
+        final LibraryIndex currentIndex = mIndex;
+
+        mFilter = filter;
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final String[] terms = filter != null ? LibraryIndex.tokenize(filter) : NO_TERMS;
+                LibraryIndex index = currentIndex;
+                List<Library> libraries = allLibraries;
+                if (terms.length > 0) {
+                    if (index == null || index.getLibraries() != allLibraries) {
+                        index = allLibraries == homage.getLibraries() ?
+                                homage.getSearchIndex() : LibraryIndex.build(allLibraries);
+                    }
+                    libraries = index.search(terms);
+                }
+
+                final List<Library> newLibraries = libraries;
+                final LibraryIndex newIndex = index;
+                long[] oldIds = currentIds != null ? currentIds : LibraryDiff.computeIds(oldLibraries);
+                final long[] newIds = LibraryDiff.computeIds(newLibraries);
+                final LibraryDiff diff = LibraryDiff.calculate(oldLibraries, oldIds, newLibraries, newIds);
+
+                sMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        // A newer update has superseded this one
+                        if (generation != mUpdateGeneration) {
+                            return;
+                        }
+
+                        boolean highlightChanged = !Arrays.equals(terms, mFilterTerms);
+                        if (allLibraries != mAllLibraries) {
+                            // Filtering the same libraries again keeps their displays, new ones are formatted as bound
+                            mDisplays.clear();
+                            mHighlightedDisplays.clear();
+                        }
+                        mAllLibraries = allLibraries;
+                        mIndex = newIndex;
+                        mFilterTerms = terms;
+                        mLibraries = newLibraries;
+                        mIds = newIds;
+                        if (highlightChanged) {
+                            mHighlightedDisplays.clear();
+                        }
+                        pruneExpandedIds(newIds);
+                        diff.dispatchTo(HomageListAdapterBase.this);
+
+                        if (highlightChanged && !newLibraries.isEmpty()) {
+                            notifyItemRangeChanged(0, newLibraries.size(), PAYLOAD_HIGHLIGHT);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Calculates IDs for the initial libraries in the background, unless an update has already replaced them.
+     */
+    @MainThread
+    private void computeIdsAsync() {
+        final List<Library> libraries = mLibraries;
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final long[] ids = LibraryDiff.computeIds(libraries);
+                sMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (mIds == null && mLibraries == libraries) {
+                            mIds = ids;
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Calculates IDs on this thread if they aren't ready yet.
+     */
+    @NonNull
+    private long[] getIds() {
+        if (mIds == null) {
+            mIds = LibraryDiff.computeIds(mLibraries);
+        }
+        return mIds;
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        if (mIds == null) {
+            computeIdsAsync();
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(HomageViewHolder holder, int position) {
+        Library library = getItem(position);
+        bindHolder(holder, position, library, getDisplay(library));
+    }
+
+    /**
+     * Formats each library the first time it is bound, so later binds are just a lookup.
+     */
+    @Nullable
+    private LibraryDisplay getDisplay(@NonNull Library library) {
+        RecyclerView recyclerView = getRecyclerView();
+        LibraryDisplay display = mDisplays.get(library);
+        if (display == null && recyclerView != null) {
+            display = LibraryDisplay.create(recyclerView.getContext(), library);
+            mDisplays.put(library, display);
+        }
+        if (display == null || mFilterTerms.length == 0) {
+            return display;
+        }
+
+        LibraryDisplay highlighted = mHighlightedDisplays.get(library);
+        if (highlighted == null && recyclerView != null) {
+            int color = ContextCompat.getColor(recyclerView.getContext(),
+                    mDark ? R.color.homage_search_highlight_dark : R.color.homage_search_highlight_light);
+            highlighted = display.highlight(mFilterTerms, color);
+            mHighlightedDisplays.put(library, highlighted);
+        }
+        return highlighted != null ? highlighted : display;
+    }
+
+    @NonNull
+    public Library getItem(int position) {
+        return mLibraries.get(position);
+    }
+
+    /**
+     * Returns an ID derived from the library's name and owner, which is kept when libraries are updated. They can be
+     * used as stable IDs by calling {@link #setHasStableIds(boolean)}. Positions beyond those libraries, for
+     * subclasses which override {@link #getItemCount()}, use the position.
+     */
+    @Override
+    public long getItemId(int position) {
+        long[] ids = getIds();
+        return position < ids.length ? ids[position] : position;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mLibraries.size();
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage.recyclerview;
+
+import android.content.Context;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.LayoutRes;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseBooleanArray;
+import android.view.ViewGroup;
+
+import java.util.List;
+
+import me.oriley.homage.HomageCatalog;
+import me.oriley.homage.Library;
+
+/**
+ * Displays libraries from a {@link HomageCatalog}, loading them in pages around the rows being shown rather than
+ * holding every library in memory. Rows are shown empty until their page has loaded.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class HomagePagedAdapter extends HomageAdapterBase {
+
+    private static final int PAGE_SIZE = 50;
+
+    // Enough for the visible page and one either side, plus a little slack when scrolling back
+    private static final int MAX_PAGES = 5;
+
+    @NonNull
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+    @NonNull
+    private final HomageCatalog mCatalog;
+
+    @NonNull
+    private final LruCache<Integer, Page> mPages = new LruCache<>(MAX_PAGES);
+
+    @NonNull
+    private final SparseBooleanArray mLoadingPages = new SparseBooleanArray();
+
+    // Pages with rows bound before they loaded, which need rebinding once they arrive
+    @NonNull
+    private final SparseBooleanArray mWaitingPages = new SparseBooleanArray();
+
+    private int mLoadGeneration;
+
+
+    public HomagePagedAdapter(@NonNull HomageCatalog catalog, @NonNull HomageView.ExtraInfoMode extraInfoMode, boolean showIcons) {
+        this(catalog, extraInfoMode, showIcons, false);
+    }
+
+    public HomagePagedAdapter(@NonNull HomageCatalog catalog, @NonNull HomageView.ExtraInfoMode extraInfoMode, boolean showIcons, boolean dark) {
+        super(extraInfoMode, showIcons, dark);
+        mCatalog = catalog;
+    }
+
+
+    @LayoutRes
+    @Override
+    int getLayoutResource() {
+        return mDark ? R.layout.homage_recycler_row_dark : R.layout.homage_recycler_row_light;
+    }
+
+    @Override
+    public HomageViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        HomageRowView view = (HomageRowView) inflateRow(parent);
+        return createHolder(view, view);
+    }
+
+    @Override
+    public void onBindViewHolder(HomageViewHolder holder, int position) {
+        int pageIndex = position / PAGE_SIZE;
+        loadPagesAround(pageIndex);
+
+        Page page = mPages.get(pageIndex);
+        int index = position - pageIndex * PAGE_SIZE;
+        if (page != null && index < page.mLibraries.size()) {
+            bindHolder(holder, position, page.mLibraries.get(index), page.mDisplays[index]);
+        } else {
+            mWaitingPages.put(pageIndex, true);
+            bindHolder(holder, position, null, null);
+        }
+    }
+
+    /**
+     * @return the library at this position if its page is loaded, otherwise null
+     */
+    @Nullable
+    public Library getItem(int position) {
+        int pageIndex = position / PAGE_SIZE;
+        Page page = mPages.get(pageIndex);
+        int index = position - pageIndex * PAGE_SIZE;
+        return page != null && index < page.mLibraries.size() ? page.mLibraries.get(index) : null;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        // Positions never change within a catalog
+        return position;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mCatalog.getCount();
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+
+        // Loads in progress are discarded, and requested again if reattached
+        mLoadGeneration++;
+        mLoadingPages.clear();
+    }
+
+    @MainThread
+    private void loadPagesAround(int pageIndex) {
+        int lastPage = (mCatalog.getCount() - 1) / PAGE_SIZE;
+        for (int i = Math.max(pageIndex - 1, 0), end = Math.min(pageIndex + 1, lastPage); i <= end; i++) {
+            loadPage(i);
+        }
+    }
+
+    @MainThread
+    private void loadPage(final int pageIndex) {
+        RecyclerView recyclerView = getRecyclerView();
+        if (recyclerView == null || mLoadingPages.get(pageIndex) || mPages.get(pageIndex) != null) {
+            return;
+        }
+
+        mLoadingPages.put(pageIndex, true);
+        final Context context = recyclerView.getContext();
+        final int generation = mLoadGeneration;
+
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<Library> libraries = mCatalog.getLibraries(pageIndex * PAGE_SIZE, PAGE_SIZE);
+                LibraryDisplay[] displays = new LibraryDisplay[libraries.size()];
+                for (int i = 0; i < displays.length; i++) {
+                    displays[i] = LibraryDisplay.create(context, libraries.get(i));
+                }
+
+                final Page page = new Page(libraries, displays);
+                sMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onPageLoaded(pageIndex, page, generation);
+                    }
+                });
+            }
+        });
+    }
+
+    @MainThread
+    private void onPageLoaded(int pageIndex, @NonNull Page page, int generation) {
+        if (generation != mLoadGeneration) {
+            return;
+        }
+
+        mLoadingPages.delete(pageIndex);
+        mPages.put(pageIndex, page);
+        if (mWaitingPages.get(pageIndex)) {
+            mWaitingPages.delete(pageIndex);
+            notifyItemRangeChanged(pageIndex * PAGE_SIZE, page.mLibraries.size());
+        }
+    }
+
+
+    private static final class Page {
+
+        @NonNull
+        final List<Library> mLibraries;
+
+        @NonNull
+        final LibraryDisplay[] mDisplays;
+
+
+        Page(@NonNull List<Library> libraries, @NonNull LibraryDisplay[] displays) {
+            mLibraries = libraries;
+            mDisplays = displays;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage.recyclerview;
+
+import android.app.Dialog;
+import android.content.Context;
+import android.graphics.Typeface;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.Spanned;
+import android.text.TextUtils;
+import android.view.View;
+import android.widget.TextView;
+
+import me.oriley.homage.Library;
+
+import static me.oriley.homage.utils.ObjectUtils.validateNonNull;
+
+/**
+ * Popup used by {@link HomageView.ExtraInfoMode#POPUP}. The dialog and its views are created once and rebound to
+ * whichever library was tapped, so repeatedly opening popups doesn't inflate anything.
+ */
+final class HomagePopup {
+
+    @NonNull
+    private final Dialog mDialog;
+
+    @NonNull
+    private final View mScrollView;
+
+    @NonNull
+    private final View mLicenseScrollView;
+
+    @NonNull
+    private final TextView mDescriptionView;
+
+    @NonNull
+    private final View mLicenseHolder;
+
+    @NonNull
+    private final TextView mLicenseNameView;
+
+    @NonNull
+    private final TextView mLicenseRightsView;
+
+    @NonNull
+    private final LicenseTextView mLicenseDescriptionView;
+
+    @Nullable
+    private Library mLibrary;
+
+    // Set while the shown library's license is being prepared in the background, and the body is still empty
+    private boolean mLicensePending;
+
+    @NonNull
+    private final Runnable mLicensePreparedCallback = new Runnable() {
+        @Override
+        public void run() {
+            Library library = mLibrary;
+            if (mLicensePending && library != null) {
+                // Asks again, as the license may have been prepared for another paint, e.g. by a row's prefetch
+                Spanned licenseDescription = prepareLicense(library);
+                if (licenseDescription != null) {
+                    bindLicense(library, licenseDescription);
+                }
+            }
+        }
+    };
+
+
+    HomagePopup(@NonNull Context context) {
+        View dialogView = View.inflate(context, R.layout.homage_view_popup_layout, null);
+
+        mScrollView = dialogView.findViewById(R.id.homage_view_popup_scroll_view);
+        mLicenseScrollView = dialogView.findViewById(R.id.homage_view_popup_license_scroll_view);
+        mDescriptionView = (TextView) dialogView.findViewById(R.id.homage_view_popup_description);
+        mLicenseHolder = dialogView.findViewById(R.id.homage_view_popup_license_holder);
+        mLicenseNameView = (TextView) dialogView.findViewById(R.id.homage_view_popup_license_name);
+        mLicenseRightsView = (TextView) dialogView.findViewById(R.id.homage_view_popup_license_rights);
+        mLicenseDescriptionView = (LicenseTextView) dialogView.findViewById(R.id.homage_view_popup_license_description);
+
+        validateNonNull(mScrollView, mLicenseScrollView, mDescriptionView, mLicenseHolder, mLicenseNameView,
+                mLicenseRightsView, mLicenseDescriptionView);
+
+        mLicenseNameView.setTypeface(Typeface.MONOSPACE, Typeface.BOLD);
+        mLicenseRightsView.setTypeface(Typeface.MONOSPACE, Typeface.BOLD_ITALIC);
+        mLicenseDescriptionView.setTypeface(Typeface.MONOSPACE);
+
+        mDialog = new Dialog(context, R.style.HomagePopupDialog);
+        mDialog.setContentView(dialogView);
+    }
+
+
+    /**
+     * Shows the library straight away. Its license body is filled in once it has been parsed and laid out in the
+     * background, which rows start when they're bound.
+     */
+    void show(@NonNull Library library, @NonNull LibraryDisplay display) {
+        mLibrary = library;
+        setText(mDescriptionView, display.description);
+        setText(mLicenseRightsView, display.rights);
+        bindLicense(library, prepareLicense(library));
+
+        // Start each library from the top rather than wherever the last one was left
+        mScrollView.scrollTo(0, 0);
+        mLicenseScrollView.scrollTo(0, 0);
+
+        if (!mDialog.isShowing()) {
+            mDialog.show();
+        }
+    }
+
+    void dismiss() {
+        if (mDialog.isShowing()) {
+            mDialog.dismiss();
+        }
+    }
+
+    @Nullable
+    private Spanned prepareLicense(@NonNull Library library) {
+        return LicenseLayoutCache.get().prepare(library, mLicenseDescriptionView.getPaint(), 0,
+                mLicensePreparedCallback);
+    }
+
+    private void bindLicense(@NonNull Library library, @Nullable Spanned licenseDescription) {
+        String licenseName = library.getLicenseName();
+        mLicensePending = licenseDescription == null;
+
+        setText(mLicenseNameView, licenseName);
+        mLicenseDescriptionView.setText(licenseDescription);
+        mLicenseDescriptionView.setVisibility(!TextUtils.isEmpty(licenseDescription) ? View.VISIBLE : View.GONE);
+
+        boolean hasLicense = !TextUtils.isEmpty(licenseName) || !TextUtils.isEmpty(licenseDescription);
+        mLicenseHolder.setVisibility(hasLicense ? View.VISIBLE : View.GONE);
+    }
+
+    private static void setText(@NonNull TextView view, @Nullable CharSequence text) {
+        view.setText(text);
+        view.setVisibility(!TextUtils.isEmpty(text) ? View.VISIBLE : View.GONE);
+    }
+}
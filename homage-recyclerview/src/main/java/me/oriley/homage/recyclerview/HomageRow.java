@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage.recyclerview;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.View;
+
+import me.oriley.homage.Library;
+import me.oriley.homage.recyclerview.HomageExpandableView.AnimationMode;
+import me.oriley.homage.recyclerview.HomageView.ExtraInfoMode;
+
+/**
+ * A view which displays a single library, bound by the Homage adapters.
+ */
+interface HomageRow {
+
+    void setLibrary(@Nullable Library library, @Nullable LibraryDisplay display);
+
+    @Nullable
+    Library getLibrary();
+
+    @Nullable
+    LibraryDisplay getLibraryDisplay();
+
+    void setExtraInfoMode(@NonNull ExtraInfoMode extraInfoMode);
+
+    void setShowIcons(boolean showIcons);
+
+    void setAnimationMode(@NonNull AnimationMode animationMode);
+
+    void showExtraInfo();
+
+    boolean isExpanded();
+
+    void setExpanded(boolean expanded);
+
+    void setOnClickListener(@Nullable View.OnClickListener listener);
+}
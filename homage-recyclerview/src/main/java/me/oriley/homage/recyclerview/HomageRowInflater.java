@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage.recyclerview;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.support.annotation.LayoutRes;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayDeque;
+
+/**
+ * Inflates rows ahead of time on a background thread, in the same way as the support library's AsyncLayoutInflater,
+ * and keeps them ready for {@link android.support.v7.widget.RecyclerView.Adapter#onCreateViewHolder}.
+ */
+final class HomageRowInflater {
+
+    private static final String TAG = HomageRowInflater.class.getSimpleName();
+
+    @NonNull
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+    @Nullable
+    private static Handler sInflateHandler;
+
+    @NonNull
+    private final ArrayDeque<View> mReady = new ArrayDeque<>();
+
+    @NonNull
+    private final LayoutInflater mInflater;
+
+    @NonNull
+    private final ViewGroup mParent;
+
+    @NonNull
+    private final Runnable mInflateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            inflate();
+        }
+    };
+
+    @LayoutRes
+    private final int mLayoutResource;
+
+    private int mTarget;
+
+    // Inflations posted but not yet delivered, only accessed from the main thread
+    private int mPending;
+
+    // Set once a row fails to inflate in the background, after which rows are only inflated on the main thread
+    private boolean mFailed;
+
+    private boolean mReleased;
+
+
+    HomageRowInflater(@NonNull ViewGroup parent, @LayoutRes int layoutResource, int target) {
+        mInflater = new InflateContext(parent.getContext()).mInflater;
+        mParent = parent;
+        mLayoutResource = layoutResource;
+        mTarget = target;
+    }
+
+
+    @NonNull
+    private static synchronized Handler getInflateHandler() {
+        if (sInflateHandler == null) {
+            HandlerThread thread = new HandlerThread("HomageRowInflater", Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            sInflateHandler = new Handler(thread.getLooper());
+        }
+        return sInflateHandler;
+    }
+
+    /**
+     * Returns a ready row if there is one, or null if the caller should inflate synchronously.
+     */
+    @MainThread
+    @Nullable
+    View poll() {
+        View view = mReady.poll();
+        fill();
+        return view;
+    }
+
+    @MainThread
+    void fill() {
+        Handler handler = getInflateHandler();
+        while (mReady.size() + mPending < mTarget) {
+            mPending++;
+            handler.post(mInflateRunnable);
+        }
+    }
+
+    @MainThread
+    void release() {
+        mReleased = true;
+        mTarget = 0;
+        mPending = 0;
+        mReady.clear();
+        getInflateHandler().removeCallbacks(mInflateRunnable);
+    }
+
+    /**
+     * @return whether a row failed to inflate off the main thread, which stops any further background inflation
+     */
+    @MainThread
+    boolean hasFailed() {
+        return mFailed;
+    }
+
+    private void inflate() {
+        View view = null;
+        try {
+            view = mInflater.inflate(mLayoutResource, mParent, false);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to inflate row in background, falling back to main thread", e);
+        }
+
+        final View result = view;
+        sMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                // Inflations in progress when released are dropped, the pending count was already reset
+                if (mReleased) {
+                    return;
+                }
+                mPending--;
+                if (result == null) {
+                    // Don't keep retrying a layout which can't be inflated off the main thread
+                    mFailed = true;
+                    mTarget = 0;
+                } else if (mReady.size() < mTarget) {
+                    mReady.add(result);
+                }
+            }
+        });
+    }
+
+
+    /**
+     * Gives views the background inflater while they are inflated off the main thread, so that those inflating their
+     * own children with {@link View#inflate} or a {@link android.view.ViewStub} don't use the activity's inflater.
+     */
+    private static final class InflateContext extends ContextWrapper {
+
+        @NonNull
+        private final LayoutInflater mInflater;
+
+
+        InflateContext(@NonNull Context base) {
+            super(base);
+            mInflater = new BasicInflater(this);
+        }
+
+
+        @Override
+        public Object getSystemService(String name) {
+            if (LAYOUT_INFLATER_SERVICE.equals(name) && Looper.myLooper() != Looper.getMainLooper()) {
+                return mInflater;
+            }
+            return super.getSystemService(name);
+        }
+    }
+
+
+    /**
+     * Inflater without the activity's factories, which aren't safe to use off the main thread.
+     */
+    private static final class BasicInflater extends LayoutInflater {
+
+        private static final String[] CLASS_PREFIXES = { "android.widget.", "android.webkit.", "android.app." };
+
+
+        BasicInflater(@NonNull Context context) {
+            super(context);
+        }
+
+
+        @Override
+        public LayoutInflater cloneInContext(Context newContext) {
+            return new BasicInflater(newContext);
+        }
+
+        @Override
+        protected View onCreateView(String name, AttributeSet attrs) throws ClassNotFoundException {
+            for (String prefix : CLASS_PREFIXES) {
+                try {
+                    View view = createView(name, prefix, attrs);
+                    if (view != null) {
+                        return view;
+                    }
+                } catch (ClassNotFoundException e) {
+                    // Try the next prefix
+                }
+            }
+            return super.onCreateView(name, attrs);
+        }
+    }
+}
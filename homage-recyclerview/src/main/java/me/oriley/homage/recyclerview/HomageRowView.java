@@ -0,0 +1,693 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage.recyclerview;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Bundle;
+import android.support.annotation.AttrRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.support.v4.widget.ExploreByTouchHelper;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+import android.widget.Button;
+
+import java.util.List;
+
+import me.oriley.homage.Library;
+import me.oriley.homage.recyclerview.HomageView.ExtraInfoMode;
+
+/**
+ * A lighter alternative to {@link HomageView} which draws the collapsed row itself rather than inflating a view for
+ * each element. Child views are only created for the expanded content, the first time the row is expanded.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class HomageRowView extends HomageExpandableView implements HomageRow {
+
+    private static final float CHEVRON_ROTATION_AMOUNT = 180f;
+
+    private static final int WEB_BUTTON_SIZE_DP = 36;
+    private static final int WEB_BUTTON_PADDING_DP = 6;
+    private static final int CHEVRON_SIZE_DP = 18;
+    private static final int CHEVRON_MARGIN_DP = 8;
+
+    private static final int VIRTUAL_WEB_BUTTON_ID = 0;
+
+    private static final int[] THEME_ATTRS = {
+            R.attr.homageTextPrimaryColor,
+            R.attr.homageTextSecondaryColor,
+            R.attr.homageInnerPadding,
+            R.attr.homageChevronDrawable,
+            R.attr.homageLinkDrawable,
+            android.R.attr.selectableItemBackground
+    };
+
+    private static final int[] STATE_PRESSED = {android.R.attr.state_pressed, android.R.attr.state_enabled};
+    private static final int[] STATE_DEFAULT = {android.R.attr.state_enabled};
+
+    @NonNull
+    private final TextPaint mTitlePaint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+
+    @NonNull
+    private final TextPaint mSummaryPaint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+
+    @Nullable
+    private final Drawable mChevronDrawable;
+
+    @Nullable
+    private final Drawable mWebDrawable;
+
+    @Nullable
+    private final Drawable mWebBackground;
+
+    // Drawn straight from the cached bitmap, so rebinding a row doesn't create a drawable for every icon
+    @Nullable
+    private Bitmap mIconBitmap;
+
+    @NonNull
+    private final Paint mIconPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    @NonNull
+    private final Rect mIconBounds = new Rect();
+
+    // Whether space is kept for the icon, either drawn or still loading
+    private boolean mHasIcon;
+
+    // Only changes with the library, checked whenever the row is measured, laid out, drawn or touched
+    private boolean mHasWebButton;
+
+    @Nullable
+    private IconLoader.Request mIconRequest;
+
+    @NonNull
+    private final IconLoader.Callback mIconCallback = new IconLoader.Callback() {
+        @Override
+        public void onIconLoaded(@Nullable Bitmap bitmap) {
+            HomageRowView.this.onIconLoaded(bitmap);
+        }
+
+        @Override
+        public void onIconDropped() {
+            mIconRequest = null;
+            if (ViewCompat.isAttachedToWindow(HomageRowView.this)) {
+                updateIcon();
+            }
+        }
+    };
+
+    private final int mPadding;
+    private final int mIconSize;
+    private final int mIconMargin;
+    private final int mWebButtonSize;
+    private final int mWebButtonPadding;
+    private final int mChevronSize;
+    private final int mChevronMargin;
+
+    @NonNull
+    private final Rect mWebBounds = new Rect();
+
+    // Exposes the drawn web button to accessibility services as if it were a view
+    @NonNull
+    private final WebButtonAccessibilityHelper mAccessibilityHelper = new WebButtonAccessibilityHelper();
+
+    @NonNull
+    private final Rect mChevronBounds = new Rect();
+
+    // Single line layouts, rebuilt only when the bound text or available width changes
+    @Nullable
+    private StaticLayout mTitleLayout;
+
+    @Nullable
+    private StaticLayout mSummaryLayout;
+
+    private int mTextWidth = -1;
+
+    private int mTextLeft;
+
+    private int mTextTop;
+
+    private int mHeaderHeight;
+
+    private float mChevronRotation;
+
+    private boolean mWebTracking;
+
+    private boolean mWebPressed;
+
+    @Nullable
+    private Library mLibrary;
+
+    @Nullable
+    private LibraryDisplay mDisplay;
+
+    @Nullable
+    private HomagePopup mPopup;
+
+    @NonNull
+    private ExtraInfoMode mExtraInfoMode = ExtraInfoMode.EXPANDABLE;
+
+    @Nullable
+    private HomageExpandedContent mExpandedContent;
+
+    @NonNull
+    private final LicensePrefetcher mLicensePrefetcher = new LicensePrefetcher();
+
+    private boolean mShowIcons;
+
+
+    public HomageRowView(@NonNull Context context) {
+        this(context, null);
+    }
+
+    public HomageRowView(@NonNull Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public HomageRowView(@NonNull Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        setWillNotDraw(false);
+        setExpandedLayoutResource(R.layout.homage_view_expanded_layout);
+
+        TypedArray a = context.obtainStyledAttributes(THEME_ATTRS);
+        mTitlePaint.setColor(a.getColor(0, 0));
+        mSummaryPaint.setColor(a.getColor(1, 0));
+        mPadding = a.getDimensionPixelSize(2, 0);
+        mChevronDrawable = a.getDrawable(3);
+        mWebDrawable = a.getDrawable(4);
+        mWebBackground = a.getDrawable(5);
+        a.recycle();
+
+        mTitlePaint.setTextSize(resolveTextSize(context, android.R.attr.textAppearanceMedium));
+        mTitlePaint.setTypeface(Typeface.DEFAULT_BOLD);
+        mSummaryPaint.setTextSize(resolveTextSize(context, android.R.attr.textAppearanceSmall));
+
+        if (mWebBackground != null) {
+            mWebBackground.setCallback(this);
+            mWebBackground.setState(STATE_DEFAULT);
+        }
+
+        float density = getResources().getDisplayMetrics().density;
+        mIconSize = getResources().getDimensionPixelSize(android.R.dimen.app_icon_size);
+        mIconMargin = getResources().getDimensionPixelSize(R.dimen.homage_recycler_card_content_padding);
+        mWebButtonSize = Math.round(WEB_BUTTON_SIZE_DP * density);
+        mWebButtonPadding = Math.round(WEB_BUTTON_PADDING_DP * density);
+        mChevronSize = Math.round(CHEVRON_SIZE_DP * density);
+        mChevronMargin = Math.round(CHEVRON_MARGIN_DP * density);
+
+        ViewCompat.setAccessibilityDelegate(this, mAccessibilityHelper);
+    }
+
+    private static float resolveTextSize(@NonNull Context context, @AttrRes int textAppearance) {
+        TypedValue value = new TypedValue();
+        context.getTheme().resolveAttribute(textAppearance, value, true);
+        TypedArray a = context.obtainStyledAttributes(value.resourceId, new int[]{android.R.attr.textSize});
+        float size = a.getDimension(0, 0f);
+        a.recycle();
+        return size;
+    }
+
+
+    @Override
+    protected void onCollapsedViewInflated(@NonNull View view) {
+        // Nothing to inflate, the collapsed row is drawn directly
+    }
+
+    @Override
+    protected void onExpandedViewInflated(@NonNull View view) {
+        mExpandedContent = new HomageExpandedContent(view);
+
+        if (mLibrary != null) {
+            updateExpandedView();
+        }
+    }
+
+    @Override
+    protected void onExpand() {
+        if (mExpandedContent != null) {
+            mExpandedContent.showLicense();
+        }
+    }
+
+    @Override
+    protected void onExpandedAnimationUpdate(float level) {
+        mChevronRotation = CHEVRON_ROTATION_AMOUNT * level;
+        invalidate(mChevronBounds);
+    }
+
+    public void setLibrary(@Nullable Library library) {
+        setLibrary(library, null);
+    }
+
+    @Override
+    public void setLibrary(@Nullable Library library, @Nullable LibraryDisplay display) {
+        // A new display for the same library, e.g. with search terms highlighted, also rebinds
+        if (mLibrary != library || (display != null && display != mDisplay)) {
+            mLibrary = library;
+            mHasWebButton = mWebDrawable != null && library != null && !TextUtils.isEmpty(library.getLibraryUrl());
+            if (display == null && library != null) {
+                display = LibraryDisplay.create(getContext(), library);
+            }
+            mDisplay = display;
+            updateViewIfBound();
+        }
+    }
+
+    @Override
+    @Nullable
+    public Library getLibrary() {
+        return mLibrary;
+    }
+
+    @Override
+    @Nullable
+    public LibraryDisplay getLibraryDisplay() {
+        return mDisplay;
+    }
+
+    @Override
+    public void setExtraInfoMode(@NonNull ExtraInfoMode extraInfoMode) {
+        if (mExtraInfoMode != extraInfoMode) {
+            mExtraInfoMode = extraInfoMode;
+            updateViewIfBound();
+        }
+    }
+
+    @Override
+    public void setShowIcons(boolean showIcons) {
+        if (mShowIcons != showIcons) {
+            mShowIcons = showIcons;
+            updateIcon();
+        }
+    }
+
+    @Override
+    public void showExtraInfo() {
+        if (mExtraInfoMode == ExtraInfoMode.EXPANDABLE) {
+            toggleExpanded();
+        } else if (mExtraInfoMode == ExtraInfoMode.POPUP) {
+            showPopup();
+        }
+    }
+
+    private void showPopup() {
+        if (mLibrary == null || mDisplay == null) {
+            return;
+        }
+
+        // Adapters share a popup between rows, this one is only used when the view is shown on its own
+        if (mPopup == null) {
+            mPopup = new HomagePopup(getContext());
+        }
+        mPopup.show(mLibrary, mDisplay);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        // The load may have been dropped while detached, request it again if the slot is still waiting
+        if (mIconRequest == null && mHasIcon && mIconBitmap == null) {
+            updateIcon();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mPopup != null) {
+            mPopup.dismiss();
+        }
+    }
+
+    private void updateViewIfBound() {
+        // Also run when unbound, so a row waiting for its library doesn't show the previous one
+        mTitleLayout = null;
+        mSummaryLayout = null;
+        mTextWidth = -1;
+        setContentDescription(mDisplay != null ? mDisplay.title : null);
+        mAccessibilityHelper.invalidateRoot();
+        updateIcon();
+
+        if (mExtraInfoMode == ExtraInfoMode.EXPANDABLE) {
+            resetExpandedState();
+            if (isExpandedViewInflated()) {
+                updateExpandedView();
+            } else if (mLibrary != null) {
+                mLicensePrefetcher.prepare(getContext(), mLibrary);
+            }
+        } else if (mLibrary != null) {
+            // Ready the popup's license body in case this row is tapped
+            mLicensePrefetcher.prepare(getContext(), mLibrary);
+        }
+        mChevronRotation = 0f;
+
+        requestLayout();
+        invalidate();
+    }
+
+    private void updateExpandedView() {
+        if (mExpandedContent != null && mLibrary != null && mDisplay != null) {
+            mExpandedContent.bind(mLibrary, mDisplay);
+        }
+    }
+
+    private void updateIcon() {
+        if (mIconRequest != null) {
+            mIconRequest.cancel();
+            mIconRequest = null;
+        }
+
+        IconLoader loader = IconLoader.get();
+        if (mShowIcons && mLibrary != null && !loader.hasFailed(mLibrary, mIconSize)) {
+            // Keep the space for the icon while it loads, so the row doesn't jump when it arrives
+            mHasIcon = true;
+            mIconBitmap = loader.getCached(mLibrary, mIconSize);
+            if (mIconBitmap == null) {
+                mIconRequest = loader.load(getContext(), mLibrary, mIconSize, mIconCallback);
+            }
+        } else {
+            mHasIcon = false;
+            mIconBitmap = null;
+        }
+        requestLayout();
+        invalidate();
+    }
+
+    private void onIconLoaded(@Nullable Bitmap bitmap) {
+        mIconRequest = null;
+        mIconBitmap = bitmap;
+        if (bitmap == null) {
+            // Give the space kept for the icon back to the text
+            mHasIcon = false;
+            requestLayout();
+        }
+        invalidate();
+    }
+
+    private boolean hasChevron() {
+        return mChevronDrawable != null && mExtraInfoMode == ExtraInfoMode.EXPANDABLE;
+    }
+
+    private void openLibraryUrl() {
+        String url = mLibrary != null ? mLibrary.getLibraryUrl() : null;
+        if (!TextUtils.isEmpty(url)) {
+            HomageView.openUrl(getContext(), url);
+        }
+    }
+
+    // region layout
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec);
+        updateTextLayouts(width);
+
+        int contentHeight = getLayoutHeight(mTitleLayout) + getLayoutHeight(mSummaryLayout);
+        if (mHasIcon) {
+            contentHeight = Math.max(contentHeight, mIconSize);
+        }
+        if (mHasWebButton) {
+            contentHeight = Math.max(contentHeight, mWebButtonSize);
+        }
+        if (hasChevron()) {
+            contentHeight = Math.max(contentHeight, mChevronSize);
+        }
+        mHeaderHeight = contentHeight + mPadding * 2;
+
+        int height = mHeaderHeight;
+        View expandedView = getInflatedExpandedView();
+        if (expandedView != null && expandedView.getVisibility() != GONE) {
+            // Expanded content grows downwards from the header, its layout params control the animated height
+            measureChild(expandedView, widthMeasureSpec, MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+            height += expandedView.getMeasuredHeight();
+        }
+
+        setMeasuredDimension(width, resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        int width = right - left;
+        int centerY = mHeaderHeight / 2;
+
+        int end = width - mPadding;
+        if (hasChevron()) {
+            mChevronBounds.set(end - mChevronSize, centerY - mChevronSize / 2, end, centerY + (mChevronSize + 1) / 2);
+            mChevronDrawable.setBounds(mChevronBounds);
+            end -= mChevronSize + mChevronMargin;
+        } else {
+            mChevronBounds.setEmpty();
+        }
+
+        if (mHasWebButton) {
+            mWebBounds.set(end - mWebButtonSize, centerY - mWebButtonSize / 2, end, centerY + (mWebButtonSize + 1) / 2);
+            mWebDrawable.setBounds(mWebBounds.left + mWebButtonPadding, mWebBounds.top + mWebButtonPadding,
+                    mWebBounds.right - mWebButtonPadding, mWebBounds.bottom - mWebButtonPadding);
+            if (mWebBackground != null) {
+                mWebBackground.setBounds(mWebBounds);
+            }
+        } else {
+            mWebBounds.setEmpty();
+        }
+
+        int start = mPadding;
+        if (mHasIcon) {
+            mIconBounds.set(start, centerY - mIconSize / 2, start + mIconSize, centerY + (mIconSize + 1) / 2);
+            start += mIconSize + mIconMargin;
+        }
+
+        mTextLeft = start;
+        mTextTop = centerY - (getLayoutHeight(mTitleLayout) + getLayoutHeight(mSummaryLayout)) / 2;
+
+        View expandedView = getInflatedExpandedView();
+        if (expandedView != null && expandedView.getVisibility() != GONE) {
+            expandedView.layout(0, mHeaderHeight, width, mHeaderHeight + expandedView.getMeasuredHeight());
+        }
+    }
+
+    private void updateTextLayouts(int width) {
+        int textWidth = width - mPadding * 2;
+        if (mHasIcon) {
+            textWidth -= mIconSize + mIconMargin;
+        }
+        if (mHasWebButton) {
+            textWidth -= mWebButtonSize;
+        }
+        if (hasChevron()) {
+            textWidth -= mChevronSize + mChevronMargin;
+        }
+        textWidth = Math.max(textWidth, 0);
+
+        if (textWidth != mTextWidth) {
+            mTextWidth = textWidth;
+            mTitleLayout = createLayout(mDisplay != null ? mDisplay.title : null, mTitlePaint, textWidth);
+            mSummaryLayout = createLayout(mDisplay != null ? mDisplay.summary : null, mSummaryPaint, textWidth);
+        }
+    }
+
+    @Nullable
+    private static StaticLayout createLayout(@Nullable CharSequence text, @NonNull TextPaint paint, int width) {
+        if (TextUtils.isEmpty(text)) {
+            return null;
+        }
+
+        CharSequence line = TextUtils.ellipsize(text, paint, width, TextUtils.TruncateAt.END);
+        return new StaticLayout(line, paint, width, Layout.Alignment.ALIGN_NORMAL, 1f, 0f, false);
+    }
+
+    private static int getLayoutHeight(@Nullable Layout layout) {
+        return layout != null ? layout.getHeight() : 0;
+    }
+
+    // endregion layout
+
+    // region drawing
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        if (mIconBitmap != null) {
+            canvas.drawBitmap(mIconBitmap, null, mIconBounds, mIconPaint);
+        }
+
+        if (mTitleLayout != null || mSummaryLayout != null) {
+            int saveCount = canvas.save();
+            canvas.translate(mTextLeft, mTextTop);
+            if (mTitleLayout != null) {
+                mTitleLayout.draw(canvas);
+                canvas.translate(0, mTitleLayout.getHeight());
+            }
+            if (mSummaryLayout != null) {
+                mSummaryLayout.draw(canvas);
+            }
+            canvas.restoreToCount(saveCount);
+        }
+
+        if (mHasWebButton) {
+            if (mWebBackground != null) {
+                mWebBackground.draw(canvas);
+            }
+            mWebDrawable.draw(canvas);
+        }
+
+        if (hasChevron()) {
+            int saveCount = canvas.save();
+            canvas.rotate(mChevronRotation, mChevronBounds.exactCenterX(), mChevronBounds.exactCenterY());
+            mChevronDrawable.draw(canvas);
+            canvas.restoreToCount(saveCount);
+        }
+    }
+
+    @Override
+    protected boolean verifyDrawable(Drawable who) {
+        return who == mWebBackground || super.verifyDrawable(who);
+    }
+
+    @Override
+    public void jumpDrawablesToCurrentState() {
+        super.jumpDrawablesToCurrentState();
+        if (mWebBackground != null) {
+            mWebBackground.jumpToCurrentState();
+        }
+    }
+
+    // endregion drawing
+
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event) {
+        return mAccessibilityHelper.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
+    }
+
+    // The web button has no view of its own, so presses within its bounds are tracked here
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        int x = (int) event.getX();
+        int y = (int) event.getY();
+
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                if (mWebBounds.contains(x, y)) {
+                    setWebPressed(true, x, y);
+                    return true;
+                }
+                break;
+            case MotionEvent.ACTION_MOVE:
+                if (mWebTracking) {
+                    if (mWebPressed && !mWebBounds.contains(x, y)) {
+                        setWebPressed(false, x, y);
+                    }
+                    return true;
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+                if (mWebTracking) {
+                    mWebTracking = false;
+                    if (mWebPressed) {
+                        setWebPressed(false, x, y);
+                        openLibraryUrl();
+                        mAccessibilityHelper.sendEventForVirtualView(VIRTUAL_WEB_BUTTON_ID,
+                                AccessibilityEvent.TYPE_VIEW_CLICKED);
+                    }
+                    return true;
+                }
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                if (mWebTracking) {
+                    mWebTracking = false;
+                    setWebPressed(false, x, y);
+                    return true;
+                }
+                break;
+        }
+        return super.onTouchEvent(event);
+    }
+
+    private void setWebPressed(boolean pressed, int x, int y) {
+        mWebPressed = pressed;
+        if (pressed) {
+            mWebTracking = true;
+        }
+        if (mWebBackground != null) {
+            if (pressed && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                mWebBackground.setHotspot(x, y);
+            }
+            mWebBackground.setState(pressed ? STATE_PRESSED : STATE_DEFAULT);
+        }
+    }
+
+
+    private final class WebButtonAccessibilityHelper extends ExploreByTouchHelper {
+
+        WebButtonAccessibilityHelper() {
+            super(HomageRowView.this);
+        }
+
+
+        @Override
+        protected int getVirtualViewAt(float x, float y) {
+            return mHasWebButton && mWebBounds.contains((int) x, (int) y) ? VIRTUAL_WEB_BUTTON_ID : INVALID_ID;
+        }
+
+        @Override
+        protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+            if (mHasWebButton) {
+                virtualViewIds.add(VIRTUAL_WEB_BUTTON_ID);
+            }
+        }
+
+        @Override
+        protected void onPopulateEventForVirtualView(int virtualViewId, AccessibilityEvent event) {
+            event.setContentDescription(getContext().getString(R.string.homage_open_website));
+        }
+
+        @Override
+        protected void onPopulateNodeForVirtualView(int virtualViewId, AccessibilityNodeInfoCompat node) {
+            node.setClassName(Button.class.getName());
+            node.setContentDescription(getContext().getString(R.string.homage_open_website));
+            node.setBoundsInParent(mWebBounds);
+            node.setClickable(true);
+            node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+        }
+
+        @Override
+        protected boolean onPerformActionForVirtualView(int virtualViewId, int action, Bundle arguments) {
+            if (action != AccessibilityNodeInfoCompat.ACTION_CLICK) {
+                return false;
+            }
+            openLibraryUrl();
+            sendEventForVirtualView(virtualViewId, AccessibilityEvent.TYPE_VIEW_CLICKED);
+            return true;
+        }
+    }
+}
@@ -16,14 +16,14 @@
 
 package me.oriley.homage.recyclerview;
 
-import android.app.Dialog;
 import android.content.Context;
 import android.content.Intent;
+import android.graphics.Bitmap;
 import android.graphics.Typeface;
 import android.net.Uri;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
-import android.text.Spanned;
+import android.support.v4.view.ViewCompat;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.Log;
@@ -33,10 +33,9 @@ import android.widget.*;
 import me.oriley.homage.Library;
 
 import static me.oriley.homage.utils.ObjectUtils.validateNonNull;
-import static me.oriley.homage.utils.StringUtils.nullToEmpty;
 
 @SuppressWarnings({"WeakerAccess", "unused"})
-public class HomageView extends HomageExpandableView {
+public class HomageView extends HomageExpandableView implements HomageRow {
 
     public enum ExtraInfoMode {
         EXPANDABLE, POPUP
@@ -64,27 +63,46 @@ public class HomageView extends HomageExpandableView {
     @Nullable
     private Library mLibrary;
 
-    @NonNull
-    private ExtraInfoMode mExtraInfoMode = ExtraInfoMode.EXPANDABLE;
+    @Nullable
+    private LibraryDisplay mDisplay;
 
-    // region expandedLayout
+    @Nullable
+    private HomagePopup mPopup;
 
     @NonNull
-    private TextView mExpandedDescription;
+    private ExtraInfoMode mExtraInfoMode = ExtraInfoMode.EXPANDABLE;
 
-    @NonNull
-    private TextView mExpandedLicenseName;
+    @Nullable
+    private HomageExpandedContent mExpandedContent;
 
     @NonNull
-    private TextView mExpandedLicenseRights;
+    private final LicensePrefetcher mLicensePrefetcher = new LicensePrefetcher();
 
-    @NonNull
-    private TextView mExpandedLicenseDescription;
+    @Nullable
+    private IconLoader.Request mIconRequest;
 
     @NonNull
-    private HorizontalScrollView mExpandedLicenseHolder;
+    private final IconLoader.Callback mIconCallback = new IconLoader.Callback() {
+        @Override
+        public void onIconLoaded(@Nullable Bitmap bitmap) {
+            mIconRequest = null;
+            if (bitmap != null) {
+                mIconView.setImageBitmap(bitmap);
+            } else {
+                hideIcon();
+            }
+        }
 
-    // endregion expandedLayout
+        @Override
+        public void onIconDropped() {
+            mIconRequest = null;
+            if (ViewCompat.isAttachedToWindow(HomageView.this)) {
+                updateIcon();
+            }
+        }
+    };
+
+    private final int mIconSize;
 
     private boolean mShowIcons;
 
@@ -99,6 +117,7 @@ public class HomageView extends HomageExpandableView {
 
     public HomageView(@NonNull Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
+        mIconSize = getResources().getDimensionPixelSize(android.R.dimen.app_icon_size);
         setCollapsedLayoutResource(R.layout.homage_view_collapsed_layout);
         setExpandedLayoutResource(R.layout.homage_view_expanded_layout);
     }
@@ -115,21 +134,33 @@ public class HomageView extends HomageExpandableView {
         validateNonNull(mTitleView, mIconView, mSummaryView, mChevronView, mWebButton);
 
         mTitleView.setTypeface(Typeface.DEFAULT_BOLD);
+
+        // Created once and reads the current library when clicked, so binding doesn't allocate
+        mWebButton.setOnClickListener(new OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                String url = mLibrary != null ? mLibrary.getLibraryUrl() : null;
+                if (!TextUtils.isEmpty(url)) {
+                    openUrl(url);
+                }
+            }
+        });
     }
 
     @Override
     protected void onExpandedViewInflated(@NonNull View view) {
-        mExpandedDescription = (TextView) view.findViewById(R.id.homage_view_expanded_description);
-        mExpandedLicenseName = (TextView) view.findViewById(R.id.homage_view_expanded_license_name);
-        mExpandedLicenseRights = (TextView) view.findViewById(R.id.homage_view_expanded_license_rights);
-        mExpandedLicenseDescription = (TextView) view.findViewById(R.id.homage_view_expanded_license_description);
-        mExpandedLicenseHolder = (HorizontalScrollView) view.findViewById(R.id.homage_view_expanded_license_holder);
+        mExpandedContent = new HomageExpandedContent(view);
 
-        validateNonNull(mExpandedDescription, mExpandedLicenseName, mExpandedLicenseDescription, mExpandedLicenseHolder);
+        if (mLibrary != null) {
+            updateExpandedView();
+        }
+    }
 
-        mExpandedLicenseName.setTypeface(Typeface.MONOSPACE, Typeface.BOLD);
-        mExpandedLicenseRights.setTypeface(Typeface.MONOSPACE, Typeface.BOLD_ITALIC);
-        mExpandedLicenseDescription.setTypeface(Typeface.MONOSPACE);
+    @Override
+    protected void onExpand() {
+        if (mExpandedContent != null) {
+            mExpandedContent.showLicense();
+        }
     }
 
     @Override
@@ -138,19 +169,39 @@ public class HomageView extends HomageExpandableView {
     }
 
     public void setLibrary(@Nullable Library library) {
-        if (mLibrary != library) {
+        setLibrary(library, null);
+    }
+
+    @Override
+    public void setLibrary(@Nullable Library library, @Nullable LibraryDisplay display) {
+        // A new display for the same library, e.g. with search terms highlighted, also rebinds
+        if (mLibrary != library || (display != null && display != mDisplay)) {
             mLibrary = library;
+            if (display == null && library != null) {
+                display = LibraryDisplay.create(getContext(), library);
+            }
+            mDisplay = display;
             updateViewIfBound();
         }
     }
 
+    @Override
     @Nullable
     public Library getLibrary() {
         return mLibrary;
     }
 
+    @Override
+    @Nullable
+    public LibraryDisplay getLibraryDisplay() {
+        return mDisplay;
+    }
+
     public void openUrl(@NonNull String url) {
-        Context context = getContext();
+        openUrl(getContext(), url);
+    }
+
+    static void openUrl(@Nullable Context context, @NonNull String url) {
         if (context == null) {
             return;
         }
@@ -164,6 +215,7 @@ public class HomageView extends HomageExpandableView {
         }
     }
 
+    @Override
     public void setExtraInfoMode(@NonNull ExtraInfoMode extraInfoMode) {
         if (mExtraInfoMode != extraInfoMode) {
             mExtraInfoMode = extraInfoMode;
@@ -171,6 +223,7 @@ public class HomageView extends HomageExpandableView {
         }
     }
 
+    @Override
     public void setShowIcons(boolean showIcons) {
         if (mShowIcons != showIcons) {
             mShowIcons = showIcons;
@@ -178,6 +231,7 @@ public class HomageView extends HomageExpandableView {
         }
     }
 
+    @Override
     public void showExtraInfo() {
         if (mExtraInfoMode == ExtraInfoMode.EXPANDABLE) {
             toggleExpanded();
@@ -187,32 +241,36 @@ public class HomageView extends HomageExpandableView {
     }
 
     private void showPopup() {
-        View dialogView = View.inflate(getContext(), R.layout.homage_view_popup_layout, null);
-
-        TextView descriptionView = (TextView) dialogView.findViewById(R.id.homage_view_popup_description);
-        TextView licenseNameView = (TextView) dialogView.findViewById(R.id.homage_view_popup_license_name);
-        TextView licenseRightsView = (TextView) dialogView.findViewById(R.id.homage_view_popup_license_rights);
-        TextView licenseDescriptionView = (TextView) dialogView.findViewById(R.id.homage_view_popup_license_description);
-        View licenseHolder = dialogView.findViewById(R.id.homage_view_popup_license_holder);
-
-        licenseNameView.setTypeface(Typeface.MONOSPACE, Typeface.BOLD);
-        licenseRightsView.setTypeface(Typeface.MONOSPACE, Typeface.BOLD_ITALIC);
-        licenseDescriptionView.setTypeface(Typeface.MONOSPACE);
+        if (mLibrary == null || mDisplay == null) {
+            return;
+        }
 
-        updateDescription(descriptionView);
-        updateLicenseHolder(licenseHolder, licenseNameView, licenseRightsView, licenseDescriptionView);
+        // Adapters share a popup between rows, this one is only used when the view is shown on its own
+        if (mPopup == null) {
+            mPopup = new HomagePopup(getContext());
+        }
+        mPopup.show(mLibrary, mDisplay);
+    }
 
-        final Dialog dialog = new Dialog(getContext(), R.style.HomagePopupDialog);
-        dialog.setContentView(dialogView);
-        dialog.show();
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        // The load may have been dropped while detached, request it again if the slot is still waiting
+        if (mIconRequest == null && mIconView.getVisibility() == VISIBLE && mIconView.getDrawable() == null) {
+            updateIcon();
+        }
     }
 
-    private void updateViewIfBound() {
-        if (mLibrary == null) {
-            Log.d(TAG, "Not bound yet, aborting");
-            return;
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mPopup != null) {
+            mPopup.dismiss();
         }
+    }
 
+    private void updateViewIfBound() {
+        // Also run when unbound, so a row waiting for its library doesn't show the previous one
         updateTitle();
         updateIcon();
         updateSummary();
@@ -220,113 +278,62 @@ public class HomageView extends HomageExpandableView {
 
         if (mExtraInfoMode == ExtraInfoMode.EXPANDABLE) {
             resetExpandedState();
-            updateDescription(mExpandedDescription);
-            updateLicenseHolder(mExpandedLicenseHolder, mExpandedLicenseName, mExpandedLicenseRights,
-                    mExpandedLicenseDescription);
+            if (isExpandedViewInflated()) {
+                updateExpandedView();
+            } else if (mLibrary != null) {
+                mLicensePrefetcher.prepare(getContext(), mLibrary);
+            }
             mChevronView.setVisibility(VISIBLE);
             mChevronView.setRotation(0f);
         } else {
             mChevronView.setVisibility(GONE);
+            if (mLibrary != null) {
+                // Ready the popup's license body in case this row is tapped
+                mLicensePrefetcher.prepare(getContext(), mLibrary);
+            }
         }
     }
 
-    private void updateDescription(@NonNull TextView view) {
-        updateTextView(view, mLibrary != null ? mLibrary.getLibraryDescription() : null);
+    private void updateExpandedView() {
+        if (mExpandedContent != null && mLibrary != null && mDisplay != null) {
+            mExpandedContent.bind(mLibrary, mDisplay);
+        }
     }
 
     private void updateIcon() {
-        int iconResource = mLibrary != null ? mLibrary.getIconResource() : -1;
-        if (iconResource > 0 && mShowIcons) {
-            mIconView.setImageResource(iconResource);
-            mIconView.setVisibility(VISIBLE);
-        } else {
-            mIconView.setImageBitmap(null);
-            mIconView.setVisibility(GONE);
+        if (mIconRequest != null) {
+            mIconRequest.cancel();
+            mIconRequest = null;
         }
-    }
 
-    private void updateWebButton() {
-        final String url = mLibrary != null ? mLibrary.getLibraryUrl() : null;
-        if (!TextUtils.isEmpty(url)) {
-            mWebButton.setVisibility(VISIBLE);
-            mWebButton.setOnClickListener(new OnClickListener() {
-                @Override
-                public void onClick(View v) {
-                    openUrl(url);
-                }
-            });
+        IconLoader loader = IconLoader.get();
+        if (mShowIcons && mLibrary != null && !loader.hasFailed(mLibrary, mIconSize)) {
+            // Keep the space for the icon while it loads, so the row doesn't jump when it arrives
+            mIconView.setImageBitmap(loader.getCached(mLibrary, mIconSize));
+            mIconView.setVisibility(VISIBLE);
+            if (mIconView.getDrawable() == null) {
+                mIconRequest = loader.load(getContext(), mLibrary, mIconSize, mIconCallback);
+            }
         } else {
-            mWebButton.setVisibility(GONE);
-            mWebButton.setOnClickListener(null);
+            hideIcon();
         }
     }
 
-    private void updateLicenseHolder(@NonNull View holder,
-                                     @Nullable TextView nameView,
-                                     @Nullable TextView rightsView,
-                                     @Nullable TextView descriptionView) {
-        String licenseName = mLibrary != null ? mLibrary.getLicenseName() : null;
-        Spanned licenseDescription = mLibrary != null ? mLibrary.getLicenseDescription() : null;
-
-        if (nameView != null) {
-            updateTextView(nameView, licenseName);
-        }
-        if (rightsView != null) {
-            updateLicenseRights(rightsView);
-        }
-        if (descriptionView != null) {
-            updateTextView(descriptionView, licenseDescription);
-        }
-
-        if (TextUtils.isEmpty(licenseName) && TextUtils.isEmpty(licenseDescription)) {
-            holder.setVisibility(GONE);
-        } else {
-            holder.setVisibility(VISIBLE);
-        }
+    private void hideIcon() {
+        mIconView.setImageBitmap(null);
+        mIconView.setVisibility(GONE);
     }
 
-    private void updateLicenseRights(@NonNull TextView view) {
-        Context context = getContext();
-        String ownerInfo = createSummary();
-        String reserved = context.getString(R.string.homage_all_rights_reserved);
-
-        String rightsText;
-        if (ownerInfo != null) {
-            rightsText = context.getString(R.string.homage_copyright, ownerInfo, reserved);
-        } else {
-            rightsText = reserved;
-        }
-
-        updateTextView(view, rightsText);
+    private void updateWebButton() {
+        String url = mLibrary != null ? mLibrary.getLibraryUrl() : null;
+        mWebButton.setVisibility(!TextUtils.isEmpty(url) ? VISIBLE : GONE);
     }
 
     private void updateTitle() {
-        String name = mLibrary != null ? mLibrary.getLibraryName() : null;
-        String version = mLibrary != null ? mLibrary.getLibraryVersion() : null;
-        if (TextUtils.isEmpty(name) && TextUtils.isEmpty(version)) {
-            updateTextView(mTitleView, (String) null);
-        } else {
-            updateTextView(mTitleView, nullToEmpty(name) + " " + nullToEmpty(version));
-        }
+        updateTextView(mTitleView, mDisplay != null ? mDisplay.title : null);
     }
 
     private void updateSummary() {
-        updateTextView(mSummaryView, createSummary());
-    }
-
-    @Nullable
-    private String createSummary() {
-        String owner = mLibrary != null ? mLibrary.getLibraryOwner() : null;
-        String year = mLibrary != null ? mLibrary.getLibraryYear() : null;
-        if (TextUtils.isEmpty(owner) && TextUtils.isEmpty(year)) {
-            return null;
-        } else {
-            String joiner = ", ";
-            if (year == null || owner == null) {
-                joiner = "";
-            }
-
-            return nullToEmpty(year) + joiner + nullToEmpty(owner);
-        }
+        updateTextView(mSummaryView, mDisplay != null ? mDisplay.summary : null);
     }
-}
\ No newline at end of file
+}
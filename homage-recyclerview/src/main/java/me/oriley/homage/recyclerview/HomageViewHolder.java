@@ -26,20 +26,53 @@ import me.oriley.homage.Library;
 public class HomageViewHolder extends RecyclerView.ViewHolder {
 
     @NonNull
-    private final HomageView mLibraryView;
+    private final HomageRow mLibraryView;
+
+    // Holders can move between adapters through a shared pool, so clicks go to whichever adapter bound them last
+    @Nullable
+    private HomageAdapterBase mAdapter;
 
     public HomageViewHolder(View view, @NonNull HomageView homage) {
+        this(view, (HomageRow) homage);
+    }
+
+    public HomageViewHolder(View view, @NonNull HomageRowView row) {
+        this(view, (HomageRow) row);
+    }
+
+    HomageViewHolder(View view, @NonNull HomageRow row) {
         super(view);
-        mLibraryView = homage;
+        mLibraryView = row;
     }
 
-    @NonNull
+    /**
+     * @return the bound {@link HomageView}, or null if this row is drawn by a {@link HomageRowView}
+     */
+    @Nullable
     public HomageView getLibraryView() {
+        return mLibraryView instanceof HomageView ? (HomageView) mLibraryView : null;
+    }
+
+    @NonNull
+    HomageRow getRow() {
         return mLibraryView;
     }
 
+    @Nullable
+    HomageAdapterBase getAdapter() {
+        return mAdapter;
+    }
+
+    void setAdapter(@Nullable HomageAdapterBase adapter) {
+        mAdapter = adapter;
+    }
+
     public void setLibrary(@Nullable Library library) {
-        mLibraryView.setLibrary(library);
+        mLibraryView.setLibrary(library, null);
+    }
+
+    void setLibrary(@Nullable Library library, @Nullable LibraryDisplay display) {
+        mLibraryView.setLibrary(library, display);
     }
 
     public void setOnClickListener(@Nullable View.OnClickListener listener) {
@@ -49,4 +82,12 @@ public class HomageViewHolder extends RecyclerView.ViewHolder {
     public void showExtraInfo() {
         mLibraryView.showExtraInfo();
     }
+
+    public boolean isExpanded() {
+        return mLibraryView.isExpanded();
+    }
+
+    public void setExpanded(boolean expanded) {
+        mLibraryView.setExpanded(expanded);
+    }
 }
\ No newline at end of file
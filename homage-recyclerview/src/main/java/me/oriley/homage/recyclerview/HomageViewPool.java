@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage.recyclerview;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.annotation.LayoutRes;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseIntArray;
+
+import me.oriley.homage.recyclerview.HomageExpandableView.AnimationMode;
+import me.oriley.homage.recyclerview.HomageView.ExtraInfoMode;
+
+/**
+ * A {@link RecyclerView.RecycledViewPool} which can be shared between every {@link RecyclerView} showing Homage
+ * adapters, so rows inflated for one list are reused by the next. Rows can also be inflated ahead of time while the
+ * main thread is idle, so the first frame of a license screen doesn't pay for inflation.
+ *
+ * Note that {@link RecyclerView} clears its pool when its adapter is removed and no other list is using the pool, so
+ * rows are only kept while at least one list is attached.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class HomageViewPool extends RecyclerView.RecycledViewPool {
+
+    // Keeps Homage view types clear of the small integers other adapters typically use
+    private static final int VIEW_TYPE_MARKER = 0x40000000;
+
+    private static final int FLAG_POPUP = 1;
+    private static final int FLAG_ICONS = 1 << 1;
+    private static final int FLAG_REVEAL = 1 << 2;
+
+    private static final int DEFAULT_MAX_ROWS = 12;
+
+    // Roughly a screen of rows kept attached-ready outside the pool, for scrolling back and forth
+    private static final int DEFAULT_ITEM_VIEW_CACHE_SIZE = 4;
+
+    @NonNull
+    private final SparseIntArray mMaxRows = new SparseIntArray();
+
+    private final int mDefaultMaxRows;
+
+
+    public HomageViewPool() {
+        this(DEFAULT_MAX_ROWS);
+    }
+
+    public HomageViewPool(int maxRowsPerType) {
+        mDefaultMaxRows = maxRowsPerType;
+    }
+
+
+    /**
+     * Row layouts and configuration are encoded in the view type, so rows are only reused by adapters which would have
+     * created an identical row.
+     */
+    static int getViewType(@LayoutRes int layoutResource,
+                           @NonNull ExtraInfoMode extraInfoMode,
+                           boolean showIcons,
+                           @NonNull AnimationMode animationMode) {
+        int flags = 0;
+        if (extraInfoMode == ExtraInfoMode.POPUP) {
+            flags |= FLAG_POPUP;
+        }
+        if (showIcons) {
+            flags |= FLAG_ICONS;
+        }
+        if (animationMode == AnimationMode.REVEAL) {
+            flags |= FLAG_REVEAL;
+        }
+
+        // The entry index is unique per layout within the package
+        return VIEW_TYPE_MARKER | (layoutResource & 0xFFFF) << 4 | flags;
+    }
+
+    /**
+     * Uses this pool for the given list and tunes its view cache for Homage rows.
+     */
+    public void attach(@NonNull RecyclerView recyclerView) {
+        recyclerView.setRecycledViewPool(this);
+        recyclerView.setItemViewCacheSize(DEFAULT_ITEM_VIEW_CACHE_SIZE);
+    }
+
+    @Override
+    public void setMaxRecycledViews(int viewType, int max) {
+        mMaxRows.put(viewType, max);
+        super.setMaxRecycledViews(viewType, max);
+    }
+
+    @Override
+    public void putRecycledView(RecyclerView.ViewHolder scrap) {
+        int viewType = scrap.getItemViewType();
+        if (mMaxRows.indexOfKey(viewType) < 0) {
+            setMaxRecycledViews(viewType, mDefaultMaxRows);
+        }
+        super.putRecycledView(scrap);
+    }
+
+    /**
+     * Inflates rows for the adapter into this pool, one at a time whenever the main thread is idle. The adapter must be
+     * one of the Homage adapters, whose view type doesn't depend on position.
+     */
+    @MainThread
+    public void prewarm(@NonNull final RecyclerView recyclerView,
+                        @NonNull final RecyclerView.Adapter<HomageViewHolder> adapter,
+                        final int count) {
+        if (count <= 0) {
+            return;
+        }
+
+        final int viewType = adapter.getItemViewType(0);
+        ensureCapacity(viewType, count);
+
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+
+            private int mCreated;
+
+            @Override
+            public boolean queueIdle() {
+                putRecycledView(adapter.createViewHolder(recyclerView, viewType));
+                return ++mCreated < count;
+            }
+        });
+    }
+
+    private void ensureCapacity(int viewType, int max) {
+        if (mMaxRows.get(viewType) < max) {
+            setMaxRecycledViews(viewType, max);
+        }
+    }
+}
@@ -0,0 +1,468 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage.recyclerview;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.annotation.WorkerThread;
+import android.support.v4.content.ContextCompat;
+import android.support.v4.util.LruCache;
+import android.util.Log;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import me.oriley.homage.Library;
+
+import static me.oriley.homage.utils.IOUtils.closeQuietly;
+
+/**
+ * Decodes library icons on a background thread, downsampled to the size they are displayed at. Decoded icons are kept
+ * in a memory cache shared by every row, so rebinding a row whose icon was recently shown doesn't decode it again.
+ */
+final class IconLoader {
+
+    private static final String TAG = IconLoader.class.getSimpleName();
+
+    private static final int MAX_CACHE_BYTES = 4 * 1024 * 1024;
+
+    // Remembers icons which couldn't be decoded, so rebinding doesn't retry them
+    private static final int MAX_FAILURES = 32;
+
+    // Enough for a couple of screens of rows, older requests have usually been scrolled past
+    private static final int MAX_QUEUED = 32;
+
+    @NonNull
+    private static final BackgroundExecutor sExecutor = new BackgroundExecutor("IconLoader", 2, MAX_QUEUED);
+
+    @NonNull
+    private static final IconLoader sInstance = new IconLoader();
+
+    @NonNull
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    @NonNull
+    private final LruCache<Key, Bitmap> mIcons = new LruCache<Key, Bitmap>(getCacheSize()) {
+        @Override
+        protected int sizeOf(Key key, Bitmap value) {
+            return value.getRowBytes() * value.getHeight();
+        }
+    };
+
+    @NonNull
+    private final LruCache<Key, Boolean> mFailures = new LruCache<>(MAX_FAILURES);
+
+    // Decodes in progress, only accessed from the main thread
+    @NonNull
+    private final Map<Key, Task> mPending = new HashMap<>();
+
+    // Reused for lookups on the main thread, so checking the caches while binding doesn't allocate
+    @NonNull
+    private final Key mLookupKey = new Key();
+
+
+    private IconLoader() {
+    }
+
+
+    @NonNull
+    static IconLoader get() {
+        return sInstance;
+    }
+
+    private static int getCacheSize() {
+        return (int) Math.min(Runtime.getRuntime().maxMemory() / 16, MAX_CACHE_BYTES);
+    }
+
+    /**
+     * Returns whether the library has an icon which can be loaded, either a resource or a supported {@link Uri}.
+     */
+    static boolean hasIcon(@NonNull Library library) {
+        if (library.getIconResource() > 0) {
+            return true;
+        }
+
+        // Checked every time a row is bound, so compare the scheme in place rather than parsing the whole URI
+        String uri = library.getIconUri();
+        return uri != null && (hasScheme(uri, ContentResolver.SCHEME_FILE) ||
+                hasScheme(uri, ContentResolver.SCHEME_CONTENT) ||
+                hasScheme(uri, ContentResolver.SCHEME_ANDROID_RESOURCE));
+    }
+
+    private static boolean hasScheme(@NonNull String uri, @NonNull String scheme) {
+        int length = scheme.length();
+        return uri.length() > length && uri.charAt(length) == ':' && uri.regionMatches(0, scheme, 0, length);
+    }
+
+    @MainThread
+    @Nullable
+    Bitmap getCached(@NonNull Library library, int size) {
+        return mIcons.get(mLookupKey.set(library, size));
+    }
+
+    @VisibleForTesting
+    @MainThread
+    void putCached(@NonNull Library library, int size, @NonNull Bitmap bitmap) {
+        mIcons.put(mLookupKey.set(library, size).copy(), bitmap);
+    }
+
+    /**
+     * Returns whether the icon is missing or known to be undecodable, in which case loading it will always fail.
+     */
+    @MainThread
+    boolean hasFailed(@NonNull Library library, int size) {
+        return !hasIcon(library) || mFailures.get(mLookupKey.set(library, size)) != null;
+    }
+
+    /**
+     * Decodes the icon in the background, no larger than size pixels in either dimension. The callback is run on the
+     * main thread, with null if the icon couldn't be decoded, unless the request is cancelled first. If the decode is
+     * dropped from a full queue the callback is told instead, so the view can request it again or give up its slot.
+     */
+    @MainThread
+    @NonNull
+    Request load(@NonNull Context context, @NonNull Library library, int size, @NonNull Callback callback) {
+        Bitmap bitmap = mIcons.get(mLookupKey.set(library, size));
+        if (bitmap != null || hasFailed(library, size)) {
+            callback.onIconLoaded(bitmap);
+            return new Request(null, callback);
+        }
+
+        Task task = mPending.get(mLookupKey.set(library, size));
+        if (task == null) {
+            String uri = library.getIconUri();
+            task = new Task(context.getApplicationContext(), library.getIconResource(),
+                    uri != null ? Uri.parse(uri) : null, size, mLookupKey.copy());
+            mPending.put(task.mKey, task);
+            sExecutor.execute(task);
+        }
+
+        Request request = new Request(task, callback);
+        task.mRequests.add(request);
+        return request;
+    }
+
+    @MainThread
+    private void cancel(@NonNull Request request) {
+        Task task = request.mTask;
+        if (task != null && mPending.get(task.mKey) == task) {
+            task.mRequests.remove(request);
+            if (task.mRequests.isEmpty()) {
+                // Nobody is waiting, so take the decode off the queue, or skip it if it's already been taken
+                task.mCancelled = true;
+                mPending.remove(task.mKey);
+                sExecutor.remove(task);
+            }
+        }
+    }
+
+    @MainThread
+    private void onTaskDropped(@NonNull Task task) {
+        if (mPending.get(task.mKey) != task) {
+            return;
+        }
+
+        mPending.remove(task.mKey);
+        for (int i = 0, size = task.mRequests.size(); i < size; i++) {
+            task.mRequests.get(i).mCallback.onIconDropped();
+        }
+    }
+
+    @MainThread
+    private void onTaskComplete(@NonNull Task task, @Nullable Bitmap bitmap) {
+        if (bitmap != null) {
+            mIcons.put(task.mKey, bitmap);
+        } else if (!task.mCancelled) {
+            mFailures.put(task.mKey, Boolean.TRUE);
+        }
+
+        if (mPending.get(task.mKey) != task) {
+            return;
+        }
+
+        mPending.remove(task.mKey);
+        for (int i = 0, size = task.mRequests.size(); i < size; i++) {
+            task.mRequests.get(i).mCallback.onIconLoaded(bitmap);
+        }
+    }
+
+    @WorkerThread
+    @Nullable
+    private static Bitmap decode(@NonNull Task task) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        decodeStream(task, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            // Not a bitmap, e.g. a vector or other XML drawable resource
+            return task.mResource > 0 ? rasterize(task.mContext, task.mResource, task.mSize) : null;
+        }
+
+        int size = task.mSize;
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= size && options.outHeight / (sampleSize * 2) >= size) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+
+        Bitmap bitmap = decodeStream(task, options);
+        if (bitmap == null) {
+            return null;
+        }
+
+        // Sampling only reduces by powers of two, so scale whatever remains down to the display size
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        if (width > size || height > size) {
+            float scale = (float) size / Math.max(width, height);
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap, Math.max(Math.round(width * scale), 1),
+                    Math.max(Math.round(height * scale), 1), true);
+            if (scaled != bitmap) {
+                bitmap.recycle();
+            }
+            bitmap = scaled;
+        }
+        return bitmap;
+    }
+
+    @WorkerThread
+    @Nullable
+    private static Bitmap decodeStream(@NonNull Task task, @NonNull BitmapFactory.Options options) {
+        InputStream stream = null;
+        try {
+            if (task.mResource > 0) {
+                stream = task.mContext.getResources().openRawResource(task.mResource);
+            } else if (task.mUri != null) {
+                stream = task.mContext.getContentResolver().openInputStream(task.mUri);
+            }
+            return stream != null ? BitmapFactory.decodeStream(stream, null, options) : null;
+        } catch (Exception e) {
+            Log.w(TAG, "unable to decode icon " + task.mKey, e);
+            return null;
+        } finally {
+            closeQuietly(stream);
+        }
+    }
+
+    /**
+     * Draws a drawable resource into a bitmap once, so it doesn't need to be inflated again for every row.
+     */
+    @WorkerThread
+    @Nullable
+    private static Bitmap rasterize(@NonNull Context context, @DrawableRes int resource, int size) {
+        Drawable drawable;
+        try {
+            drawable = ContextCompat.getDrawable(context, resource);
+        } catch (Exception e) {
+            Log.w(TAG, "unable to load icon drawable " + resource, e);
+            return null;
+        }
+        if (drawable == null) {
+            return null;
+        }
+
+        int width = drawable.getIntrinsicWidth();
+        int height = drawable.getIntrinsicHeight();
+        if (width <= 0 || height <= 0) {
+            width = size;
+            height = size;
+        }
+
+        float scale = (float) size / Math.max(width, height);
+        width = Math.max(Math.round(width * scale), 1);
+        height = Math.max(Math.round(height * scale), 1);
+
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        drawable = drawable.mutate();
+        drawable.setBounds(0, 0, width, height);
+        drawable.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+
+    interface Callback {
+
+        @MainThread
+        void onIconLoaded(@Nullable Bitmap bitmap);
+
+        /**
+         * The decode was dropped to make room for newer requests and nothing was loaded.
+         */
+        @MainThread
+        void onIconDropped();
+    }
+
+    /**
+     * A pending icon load, which should be cancelled when its view is rebound.
+     */
+    static final class Request {
+
+        // Null if the icon was already loaded
+        @Nullable
+        private final Task mTask;
+
+        @NonNull
+        private final Callback mCallback;
+
+
+        private Request(@Nullable Task task, @NonNull Callback callback) {
+            mTask = task;
+            mCallback = callback;
+        }
+
+
+        @MainThread
+        void cancel() {
+            sInstance.cancel(this);
+        }
+    }
+
+    /**
+     * Identifies an icon by its source and size. Stored keys are copies, as the lookup key is reset for every library.
+     */
+    private static final class Key {
+
+        @DrawableRes
+        private int mResource;
+
+        @Nullable
+        private String mUri;
+
+        private int mSize;
+
+        private int mHashCode;
+
+
+        @NonNull
+        Key set(@NonNull Library library, int size) {
+            int resource = library.getIconResource();
+            return set(resource > 0 ? resource : 0, resource > 0 ? null : library.getIconUri(), size);
+        }
+
+        @NonNull
+        Key copy() {
+            return new Key().set(mResource, mUri, mSize);
+        }
+
+        @NonNull
+        private Key set(@DrawableRes int resource, @Nullable String uri, int size) {
+            mResource = resource;
+            mUri = uri;
+            mSize = size;
+
+            int result = resource;
+            result = 31 * result + (uri != null ? uri.hashCode() : 0);
+            result = 31 * result + size;
+            mHashCode = result;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) o;
+            return mResource == key.mResource &&
+                    mSize == key.mSize &&
+                    (mUri != null ? mUri.equals(key.mUri) : key.mUri == null);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+
+        @Override
+        public String toString() {
+            return mSize + ":" + (mResource > 0 ? "res:" + mResource : mUri);
+        }
+    }
+
+    private final class Task implements BackgroundExecutor.DroppableTask {
+
+        @NonNull
+        private final Context mContext;
+
+        @DrawableRes
+        private final int mResource;
+
+        @Nullable
+        private final Uri mUri;
+
+        private final int mSize;
+
+        @NonNull
+        private final Key mKey;
+
+        @NonNull
+        private final List<Request> mRequests = new ArrayList<>(1);
+
+        private volatile boolean mCancelled;
+
+
+        Task(@NonNull Context context, @DrawableRes int resource, @Nullable Uri uri, int size, @NonNull Key key) {
+            mContext = context;
+            mResource = resource;
+            mUri = uri;
+            mSize = size;
+            mKey = key;
+        }
+
+
+        @Override
+        public void run() {
+            final Bitmap bitmap = mCancelled ? null : decode(this);
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    onTaskComplete(Task.this, bitmap);
+                }
+            });
+        }
+
+        @Override
+        public void onDropped() {
+            // Dropped while queueing another task, so let the queue settle before anyone requests it again
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    onTaskDropped(Task.this);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage.recyclerview;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.support.v7.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import me.oriley.homage.Library;
+
+/**
+ * Calculates the adapter notifications needed to turn one library list into another, matching libraries by their
+ * stable IDs.
+ */
+final class LibraryDiff {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final int OP_REMOVE = 0;
+    private static final int OP_MOVE = 1;
+    private static final int OP_INSERT = 2;
+    private static final int OP_CHANGE = 3;
+
+    // Beyond this proportion of the list, a full rebind is cheaper than animating every change
+    private static final float MAX_CHANGED_FRACTION = 0.5f;
+
+    @NonNull
+    private final List<int[]> mOperations;
+
+    private final boolean mFullRefresh;
+
+
+    private LibraryDiff(@NonNull List<int[]> operations, boolean fullRefresh) {
+        mOperations = operations;
+        mFullRefresh = fullRefresh;
+    }
+
+
+    /**
+     * Derives an ID for each library from its name and owner, so the same library keeps its ID across reloads.
+     * Libraries which share a name and owner are told apart by the order in which they appear.
+     */
+    @WorkerThread
+    @NonNull
+    static long[] computeIds(@NonNull List<Library> libraries) {
+        int size = libraries.size();
+        long[] ids = new long[size];
+        PositionMap used = new PositionMap(size);
+        for (int i = 0; i < size; i++) {
+            Library library = libraries.get(i);
+            long id = hash(hash(FNV_OFFSET, library.getLibraryName()), library.getLibraryOwner());
+            while (id == RecyclerView.NO_ID || !used.put(id, i)) {
+                id = mix(id + FNV_PRIME);
+            }
+            ids[i] = id;
+        }
+        return ids;
+    }
+
+    @WorkerThread
+    @NonNull
+    static LibraryDiff calculate(@NonNull List<Library> oldLibraries,
+                                 @NonNull long[] oldIds,
+                                 @NonNull List<Library> newLibraries,
+                                 @NonNull long[] newIds) {
+        List<int[]> operations = new ArrayList<>();
+
+        PositionMap oldPositions = new PositionMap(oldIds.length);
+        for (int i = 0; i < oldIds.length; i++) {
+            oldPositions.put(oldIds[i], i);
+        }
+        PositionMap newPositions = new PositionMap(newIds.length);
+        for (int i = 0; i < newIds.length; i++) {
+            newPositions.put(newIds[i], i);
+        }
+
+        // Removals from the end, so earlier positions are unaffected
+        for (int i = oldIds.length - 1; i >= 0; i--) {
+            if (newPositions.get(oldIds[i]) < 0) {
+                operations.add(new int[] { OP_REMOVE, i });
+            }
+        }
+
+        // Index of each remaining library among those remaining, in their old order
+        int[] remainingIndex = new int[oldIds.length];
+        int remaining = 0;
+        for (int i = 0; i < oldIds.length; i++) {
+            remainingIndex[i] = newPositions.get(oldIds[i]) >= 0 ? remaining++ : -1;
+        }
+
+        // Put the remaining libraries into their new relative order. Each move takes a library to the end of those
+        // already placed, and the rest stay in their old order, so a library's current position is the number placed
+        // plus the number still unplaced before it. A Fenwick tree counts those in logarithmic time.
+        int[] unplaced = createFenwickTree(remaining);
+        int target = 0;
+        for (long id : newIds) {
+            int oldPosition = oldPositions.get(id);
+            if (oldPosition < 0) {
+                continue;
+            }
+            int index = remainingIndex[oldPosition];
+            int from = target + countBefore(unplaced, index);
+            if (from != target) {
+                operations.add(new int[] { OP_MOVE, from, target });
+            }
+            remove(unplaced, index);
+            target++;
+        }
+
+        // Inserting in ascending order of final position keeps each position valid when dispatched
+        for (int i = 0; i < newIds.length; i++) {
+            int oldPosition = oldPositions.get(newIds[i]);
+            if (oldPosition < 0) {
+                operations.add(new int[] { OP_INSERT, i });
+            } else if (!sameContents(oldLibraries.get(oldPosition), newLibraries.get(i))) {
+                operations.add(new int[] { OP_CHANGE, i });
+            }
+        }
+
+        int size = Math.max(Math.max(oldIds.length, newIds.length), 1);
+        return new LibraryDiff(operations, operations.size() > size * MAX_CHANGED_FRACTION);
+    }
+
+    @MainThread
+    void dispatchTo(@NonNull RecyclerView.Adapter adapter) {
+        if (mFullRefresh) {
+            adapter.notifyDataSetChanged();
+            return;
+        }
+
+        for (int i = 0, size = mOperations.size(); i < size; i++) {
+            int[] operation = mOperations.get(i);
+            switch (operation[0]) {
+                case OP_REMOVE:
+                    adapter.notifyItemRemoved(operation[1]);
+                    break;
+                case OP_MOVE:
+                    adapter.notifyItemMoved(operation[1], operation[2]);
+                    break;
+                case OP_INSERT:
+                    adapter.notifyItemInserted(operation[1]);
+                    break;
+                case OP_CHANGE:
+                    adapter.notifyItemChanged(operation[1]);
+                    break;
+            }
+        }
+    }
+
+    @NonNull
+    private static int[] createFenwickTree(int size) {
+        // Every library starts unplaced, i.e. each leaf holds 1
+        int[] tree = new int[size + 1];
+        for (int i = 1; i <= size; i++) {
+            tree[i]++;
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                tree[parent] += tree[i];
+            }
+        }
+        return tree;
+    }
+
+    private static int countBefore(@NonNull int[] tree, int index) {
+        int count = 0;
+        for (int i = index; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    private static void remove(@NonNull int[] tree, int index) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i]--;
+        }
+    }
+
+    private static boolean sameContents(@NonNull Library a, @NonNull Library b) {
+        return a == b || (equal(a.getLibraryName(), b.getLibraryName()) &&
+                equal(a.getLibraryVersion(), b.getLibraryVersion()) &&
+                equal(a.getLibraryDescription(), b.getLibraryDescription()) &&
+                equal(a.getLibraryYear(), b.getLibraryYear()) &&
+                equal(a.getLibraryOwner(), b.getLibraryOwner()) &&
+                equal(a.getLibraryOwnerUrl(), b.getLibraryOwnerUrl()) &&
+                equal(a.getLibraryUrl(), b.getLibraryUrl()) &&
+                equal(a.getIconUri(), b.getIconUri()) &&
+                a.getIconResource() == b.getIconResource() &&
+                a.getLicense() == b.getLicense());
+    }
+
+    private static boolean equal(@Nullable String a, @Nullable String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static long hash(long hash, String value) {
+        if (value != null) {
+            for (int i = 0, length = value.length(); i < length; i++) {
+                hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        // Separator so that ("ab", "c") and ("a", "bc") differ
+        return (hash ^ 0xFFFF) * FNV_PRIME;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        return value;
+    }
+
+
+    /**
+     * Maps IDs to positions without boxing either, using open addressing. {@link RecyclerView#NO_ID} is never used as
+     * an ID, so it marks empty slots.
+     */
+    private static final class PositionMap {
+
+        @NonNull
+        private final long[] mIds;
+
+        @NonNull
+        private final int[] mPositions;
+
+        private final int mMask;
+
+
+        PositionMap(int size) {
+            // At most half full, so probe sequences stay short
+            int capacity = 2;
+            while (capacity < size * 2) {
+                capacity <<= 1;
+            }
+            mIds = new long[capacity];
+            mPositions = new int[capacity];
+            mMask = capacity - 1;
+            Arrays.fill(mIds, RecyclerView.NO_ID);
+        }
+
+
+        /**
+         * @return false if the ID was already present, in which case its position is unchanged
+         */
+        boolean put(long id, int position) {
+            int slot = slot(id);
+            while (mIds[slot] != RecyclerView.NO_ID) {
+                if (mIds[slot] == id) {
+                    return false;
+                }
+                slot = (slot + 1) & mMask;
+            }
+            mIds[slot] = id;
+            mPositions[slot] = position;
+            return true;
+        }
+
+        /**
+         * @return the position of the ID, or -1 if it isn't present
+         */
+        int get(long id) {
+            int slot = slot(id);
+            while (mIds[slot] != RecyclerView.NO_ID) {
+                if (mIds[slot] == id) {
+                    return mPositions[slot];
+                }
+                slot = (slot + 1) & mMask;
+            }
+            return -1;
+        }
+
+        private int slot(long id) {
+            // IDs are already hashes, so folding the halves together is enough
+            return (int) (id ^ (id >>> 32)) & mMask;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage.recyclerview;
+
+import android.content.Context;
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.SpannableString;
+import android.text.Spanned;
+import android.text.TextUtils;
+import android.text.style.BackgroundColorSpan;
+
+import me.oriley.homage.Library;
+import me.oriley.homage.LibraryIndex;
+
+import static me.oriley.homage.utils.StringUtils.nullToEmpty;
+
+/**
+ * Display strings for a single {@link Library}, formatted once so rows can be rebound without any string building.
+ */
+final class LibraryDisplay {
+
+    @Nullable
+    final CharSequence title;
+
+    @Nullable
+    final CharSequence summary;
+
+    @NonNull
+    final String rights;
+
+    @Nullable
+    final CharSequence description;
+
+
+    private LibraryDisplay(@NonNull Context context, @NonNull Library library) {
+        String summary = createSummary(library);
+        this.title = createTitle(library);
+        this.summary = summary;
+        this.rights = createRights(context, summary);
+        this.description = library.getLibraryDescription();
+    }
+
+    private LibraryDisplay(@Nullable CharSequence title,
+                           @Nullable CharSequence summary,
+                           @NonNull String rights,
+                           @Nullable CharSequence description) {
+        this.title = title;
+        this.summary = summary;
+        this.rights = rights;
+        this.description = description;
+    }
+
+
+    @NonNull
+    static LibraryDisplay create(@NonNull Context context, @NonNull Library library) {
+        return new LibraryDisplay(context, library);
+    }
+
+    /**
+     * Returns a copy with the start of each word matching a search term highlighted, using terms from
+     * {@link LibraryIndex#tokenize(CharSequence)}.
+     */
+    @NonNull
+    LibraryDisplay highlight(@NonNull String[] terms, @ColorInt int color) {
+        return new LibraryDisplay(highlight(title, terms, color), highlight(summary, terms, color), rights,
+                highlight(description, terms, color));
+    }
+
+    @Nullable
+    private static CharSequence highlight(@Nullable CharSequence text, @NonNull String[] terms, @ColorInt int color) {
+        if (TextUtils.isEmpty(text) || terms.length == 0) {
+            return text;
+        }
+
+        SpannableString highlighted = null;
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                // Highlight the longest term starting this word, as that's how much of it was typed
+                int matched = 0;
+                for (String term : terms) {
+                    if (term.length() > matched && startsWithIgnoreCase(text, start, i, term)) {
+                        matched = term.length();
+                    }
+                }
+                if (matched > 0) {
+                    if (highlighted == null) {
+                        highlighted = new SpannableString(text);
+                    }
+                    highlighted.setSpan(new BackgroundColorSpan(color), start, start + matched,
+                            Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                }
+                start = -1;
+            }
+        }
+        return highlighted != null ? highlighted : text;
+    }
+
+    private static boolean startsWithIgnoreCase(@NonNull CharSequence text, int start, int end, @NonNull String term) {
+        if (end - start < term.length()) {
+            return false;
+        }
+        for (int i = 0; i < term.length(); i++) {
+            if (Character.toLowerCase(text.charAt(start + i)) != term.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Nullable
+    private static String createTitle(@NonNull Library library) {
+        String name = library.getLibraryName();
+        String version = library.getLibraryVersion();
+        if (TextUtils.isEmpty(name) && TextUtils.isEmpty(version)) {
+            return null;
+        } else {
+            return nullToEmpty(name) + " " + nullToEmpty(version);
+        }
+    }
+
+    @Nullable
+    private static String createSummary(@NonNull Library library) {
+        String owner = library.getLibraryOwner();
+        String year = library.getLibraryYear();
+        if (TextUtils.isEmpty(owner) && TextUtils.isEmpty(year)) {
+            return null;
+        } else {
+            String joiner = ", ";
+            if (year == null || owner == null) {
+                joiner = "";
+            }
+
+            return nullToEmpty(year) + joiner + nullToEmpty(owner);
+        }
+    }
+
+    @NonNull
+    private static String createRights(@NonNull Context context, @Nullable String ownerInfo) {
+        String reserved = context.getString(R.string.homage_all_rights_reserved);
+        if (ownerInfo != null) {
+            return context.getString(R.string.homage_copyright, ownerInfo, reserved);
+        } else {
+            return reserved;
+        }
+    }
+}
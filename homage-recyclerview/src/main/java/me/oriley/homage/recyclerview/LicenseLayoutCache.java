@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage.recyclerview;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Typeface;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
+import android.text.Layout;
+import android.text.Spanned;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import me.oriley.homage.Library;
+
+/**
+ * Parses and lays out license bodies on a background thread before they're shown, keeping the layouts for
+ * {@link LicenseTextView} to draw, so the first expand of a row doesn't have to parse and shape the whole license on
+ * the UI thread. Many libraries share a license, so each license is only laid out once per paint and width rather
+ * than once per view.
+ */
+final class LicenseLayoutCache {
+
+    // Only a handful of licenses are ever shown, across light and dark styles
+    private static final int MAX_LAYOUTS = 16;
+
+    // Licenses are prepared as rows are bound, so only those for the last few screens of rows are worth keeping
+    private static final int MAX_QUEUED = 32;
+
+    @NonNull
+    private static final BackgroundExecutor sExecutor = new BackgroundExecutor("LicenseLayoutCache", 1, MAX_QUEUED);
+
+    private static final int[] DEFAULT_ATTRS = { R.attr.homageTextSecondaryColor };
+
+    @NonNull
+    private static final LicenseLayoutCache sInstance = new LicenseLayoutCache();
+
+    @NonNull
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    // Laid out license text, written from background threads
+    @NonNull
+    private final LruCache<Key, StaticLayout> mLayouts = new LruCache<>(MAX_LAYOUTS);
+
+    // Callbacks waiting on each library's license, only accessed from the main thread
+    @NonNull
+    private final Map<Library, List<Runnable>> mPending = new IdentityHashMap<>();
+
+    // Reused for lookups on the main thread, so checking a prepared license doesn't allocate
+    @NonNull
+    private final Key mLookupKey = new Key();
+
+
+    private LicenseLayoutCache() {
+    }
+
+
+    @NonNull
+    static LicenseLayoutCache get() {
+        return sInstance;
+    }
+
+    /**
+     * Returns the library's license description if it has been parsed and laid out with this paint and width, so
+     * {@link #getLayout} will return its layout. Otherwise this schedules both in the background and returns null, and
+     * the callback is run on the main thread once {@link Library#peekLicenseDescription()} returns the prepared
+     * description.
+     *
+     * @param width the width to wrap the text at, or 0 to lay it out at its natural width
+     */
+    @MainThread
+    @Nullable
+    Spanned prepare(@NonNull Library library, @NonNull TextPaint paint, int width, @Nullable Runnable callback) {
+        Spanned description = library.peekLicenseDescription();
+        if (description != null && (TextUtils.isEmpty(description) || getLayout(description, paint, width) != null)) {
+            return description;
+        }
+
+        List<Runnable> callbacks = mPending.get(library);
+        if (callbacks != null) {
+            if (callback != null && !callbacks.contains(callback)) {
+                callbacks.add(callback);
+            }
+            return null;
+        }
+
+        callbacks = new ArrayList<>(1);
+        if (callback != null) {
+            callbacks.add(callback);
+        }
+        mPending.put(library, callbacks);
+
+        // Paint isn't thread safe, so the layout gets its own copy
+        sExecutor.execute(new PrepareTask(library, new TextPaint(paint), width));
+        return null;
+    }
+
+    /**
+     * Returns the layout prepared for the text, or null if it hasn't been laid out with this paint and width yet.
+     */
+    @MainThread
+    @Nullable
+    StaticLayout getLayout(@NonNull CharSequence text, @NonNull TextPaint paint, int width) {
+        return mLayouts.get(mLookupKey.set(text, paint, width));
+    }
+
+    /**
+     * Returns the layout prepared for the text, laying it out on this thread if it isn't ready yet.
+     */
+    @MainThread
+    @NonNull
+    StaticLayout getOrCreateLayout(@NonNull CharSequence text, @NonNull TextPaint paint, int width) {
+        StaticLayout layout = getLayout(text, paint, width);
+        if (layout == null) {
+            // Laid out with a copy, as the cached layout keeps drawing with its paint after the view's changes
+            layout = createLayout(text, new TextPaint(paint), width);
+            mLayouts.put(mLookupKey.copy(), layout);
+        }
+        return layout;
+    }
+
+    /**
+     * Creates a paint matching the license bodies in the default homage layouts, so their text can be prepared before
+     * the views which show it are inflated.
+     */
+    @NonNull
+    static TextPaint createDefaultPaint(@NonNull Context context) {
+        TypedArray a = context.obtainStyledAttributes(DEFAULT_ATTRS);
+        TextPaint paint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+        paint.setColor(a.getColor(0, paint.getColor()));
+        a.recycle();
+
+        Resources resources = context.getResources();
+        paint.setTextSize(resources.getDimension(R.dimen.homage_license_description_text_size));
+        paint.density = resources.getDisplayMetrics().density;
+        paint.setTypeface(Typeface.MONOSPACE);
+        return paint;
+    }
+
+    @MainThread
+    private void onLicensePrepared(@NonNull Library library) {
+        List<Runnable> callbacks = mPending.remove(library);
+        if (callbacks != null) {
+            for (int i = 0, size = callbacks.size(); i < size; i++) {
+                callbacks.get(i).run();
+            }
+        }
+    }
+
+    @NonNull
+    private static StaticLayout createLayout(@NonNull CharSequence text, @NonNull TextPaint paint, int width) {
+        // License text carries its own line breaks and usually scrolls horizontally, so wrapping is optional
+        if (width <= 0) {
+            width = (int) Math.ceil(Layout.getDesiredWidth(text, paint));
+        }
+        return new StaticLayout(text, paint, width, Layout.Alignment.ALIGN_NORMAL, 1f, 0f, true);
+    }
+
+
+    private final class PrepareTask implements BackgroundExecutor.DroppableTask {
+
+        @NonNull
+        private final Library mLibrary;
+
+        @NonNull
+        private final TextPaint mPaint;
+
+        private final int mWidth;
+
+
+        PrepareTask(@NonNull Library library, @NonNull TextPaint paint, int width) {
+            mLibrary = library;
+            mPaint = paint;
+            mWidth = width;
+        }
+
+
+        @Override
+        public void run() {
+            Spanned description = mLibrary.getLicenseDescription();
+            if (!TextUtils.isEmpty(description)) {
+                Key key = new Key().set(description, mPaint, mWidth);
+                if (mLayouts.get(key) == null) {
+                    mLayouts.put(key, createLayout(description, mPaint, mWidth));
+                }
+            }
+
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    onLicensePrepared(mLibrary);
+                }
+            });
+        }
+
+        @Override
+        public void onDropped() {
+            // Rows still showing the library prepare it again when rebound, or fill it in when expanded
+            mPending.remove(mLibrary);
+        }
+    }
+
+    /**
+     * Identifies prepared text by the instance it was parsed to, along with its width and the paint attributes which
+     * affect how it's laid out and drawn. Only the attributes are kept, not the paint itself.
+     */
+    private static final class Key {
+
+        @Nullable
+        private CharSequence mText;
+
+        private float mTextSize;
+
+        @Nullable
+        private Typeface mTypeface;
+
+        private int mColor;
+
+        private int mWidth;
+
+        private int mHashCode;
+
+
+        @NonNull
+        Key set(@NonNull CharSequence text, @NonNull TextPaint paint, int width) {
+            return set(text, paint.getTextSize(), paint.getTypeface(), paint.getColor(), width);
+        }
+
+        @NonNull
+        Key copy() {
+            return new Key().set(mText, mTextSize, mTypeface, mColor, mWidth);
+        }
+
+        @NonNull
+        private Key set(CharSequence text, float textSize, @Nullable Typeface typeface, int color, int width) {
+            mText = text;
+            mTextSize = textSize;
+            mTypeface = typeface;
+            mColor = color;
+            mWidth = width;
+
+            int result = System.identityHashCode(text);
+            result = 31 * result + Float.floatToIntBits(textSize);
+            result = 31 * result + (typeface != null ? typeface.hashCode() : 0);
+            result = 31 * result + color;
+            result = 31 * result + width;
+            mHashCode = result;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) o;
+            return mText == key.mText &&
+                    mColor == key.mColor &&
+                    mWidth == key.mWidth &&
+                    Float.compare(mTextSize, key.mTextSize) == 0 &&
+                    (mTypeface != null ? mTypeface.equals(key.mTypeface) : key.mTypeface == null);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage.recyclerview;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.Spanned;
+import android.text.TextPaint;
+
+import me.oriley.homage.Library;
+
+/**
+ * Requests a library's license layout from {@link LicenseLayoutCache} before the view which shows it is inflated, so
+ * it is usually ready by the time a row is first expanded or its popup is shown.
+ */
+final class LicensePrefetcher {
+
+    @Nullable
+    private TextPaint mPaint;
+
+    @Nullable
+    private CharSequence mPrepared;
+
+
+    void prepare(@NonNull Context context, @NonNull Library library) {
+        // Licenses which haven't been parsed yet peek as null, so are always requested
+        Spanned description = library.peekLicenseDescription();
+        if (description != null && description == mPrepared) {
+            return;
+        }
+
+        if (mPaint == null) {
+            mPaint = LicenseLayoutCache.createDefaultPaint(context);
+        }
+        mPrepared = LicenseLayoutCache.get().prepare(library, mPaint, 0, null);
+    }
+}
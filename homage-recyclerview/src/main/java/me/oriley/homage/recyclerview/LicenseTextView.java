@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package me.oriley.homage.recyclerview;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Typeface;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.widget.TextView;
+
+/**
+ * Draws a license body from the {@link StaticLayout} prepared in the background by {@link LicenseLayoutCache}, so
+ * showing it doesn't lay out the whole license on the UI thread. Text set before it has been prepared is laid out
+ * when the view is measured. Accessibility services read the body as text, as they would a {@link TextView}.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class LicenseTextView extends View {
+
+    @NonNull
+    private final TextPaint mPaint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+
+    @Nullable
+    private CharSequence mText;
+
+    @Nullable
+    private StaticLayout mLayout;
+
+
+    public LicenseTextView(@NonNull Context context) {
+        this(context, null);
+    }
+
+    public LicenseTextView(@NonNull Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public LicenseTextView(@NonNull Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.LicenseTextView, defStyleAttr, 0);
+        mPaint.setTextSize(a.getDimension(R.styleable.LicenseTextView_android_textSize, mPaint.getTextSize()));
+        mPaint.setColor(a.getColor(R.styleable.LicenseTextView_android_textColor, mPaint.getColor()));
+        a.recycle();
+
+        mPaint.density = getResources().getDisplayMetrics().density;
+        mPaint.setTypeface(Typeface.MONOSPACE);
+    }
+
+
+    /**
+     * Returns the paint the text is drawn with, for preparing its layout with {@link LicenseLayoutCache}. It shouldn't
+     * be modified.
+     */
+    @NonNull
+    public TextPaint getPaint() {
+        return mPaint;
+    }
+
+    public void setText(@Nullable CharSequence text) {
+        if (mText == text) {
+            return;
+        }
+
+        mText = text;
+        mLayout = !TextUtils.isEmpty(text) ? LicenseLayoutCache.get().getLayout(text, mPaint, 0) : null;
+        requestLayout();
+        invalidate();
+    }
+
+    @Nullable
+    public CharSequence getText() {
+        return mText;
+    }
+
+    public void setTypeface(@Nullable Typeface typeface) {
+        if (mPaint.getTypeface() != typeface) {
+            mPaint.setTypeface(typeface);
+            CharSequence text = mText;
+            mText = null;
+            setText(text);
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (mLayout == null && !TextUtils.isEmpty(mText)) {
+            // Shown before the background layout finished, or since evicted, so lay it out here instead
+            mLayout = LicenseLayoutCache.get().getOrCreateLayout(mText, mPaint, 0);
+        }
+
+        int width = getPaddingLeft() + getPaddingRight();
+        int height = getPaddingTop() + getPaddingBottom();
+        if (mLayout != null) {
+            width += mLayout.getWidth();
+            height += mLayout.getHeight();
+        }
+
+        setMeasuredDimension(resolveSize(Math.max(width, getSuggestedMinimumWidth()), widthMeasureSpec),
+                resolveSize(Math.max(height, getSuggestedMinimumHeight()), heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mLayout == null) {
+            return;
+        }
+
+        int saveCount = canvas.save();
+        canvas.translate(getPaddingLeft(), getPaddingTop());
+        mLayout.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    @Override
+    public void onPopulateAccessibilityEvent(AccessibilityEvent event) {
+        super.onPopulateAccessibilityEvent(event);
+        if (!TextUtils.isEmpty(mText)) {
+            event.getText().add(mText);
+        }
+    }
+
+    @Override
+    public void onInitializeAccessibilityEvent(AccessibilityEvent event) {
+        super.onInitializeAccessibilityEvent(event);
+        event.setClassName(TextView.class.getName());
+    }
+
+    @Override
+    public void onInitializeAccessibilityNodeInfo(AccessibilityNodeInfo info) {
+        super.onInitializeAccessibilityNodeInfo(info);
+        info.setClassName(TextView.class.getName());
+        info.setText(mText);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage;
+
+import android.support.annotation.DrawableRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.SpannedString;
+
+import java.util.List;
+
+/**
+ * Creates libraries for tests outside this package, as their constructors are package private.
+ */
+public final class TestLibraries {
+
+    // Libraries are only equal if they share a license instance
+    private static final License LICENSE = new License("Apache 2.0", "https://www.apache.org/licenses/LICENSE-2.0",
+            new SpannedString(""));
+
+    private TestLibraries() {
+        throw new IllegalAccessError("no instances");
+    }
+
+
+    @NonNull
+    public static Library create(@Nullable String name, @Nullable String owner, @Nullable String version) {
+        Library library = new Library(name, null, version, "Description of " + name, "2016", owner,
+                "https://example.com/" + owner, "https://example.com/" + name, "apache2");
+        library.setLicense(LICENSE);
+        return library;
+    }
+
+    public static void setIconResource(@NonNull Library library, @DrawableRes int iconResource) {
+        library.setIconResource(iconResource);
+    }
+
+    public static void setIconUri(@NonNull Library library, @Nullable String iconUri) {
+        library.setIconUri(iconUri);
+    }
+
+    public static void setLibraries(@NonNull Homage homage, @NonNull List<Library> libraries) {
+        homage.setLibraries(libraries);
+    }
+}
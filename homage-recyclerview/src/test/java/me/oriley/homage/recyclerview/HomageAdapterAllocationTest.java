@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage.recyclerview;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import me.oriley.homage.Homage;
+import me.oriley.homage.Library;
+import me.oriley.homage.TestLibraries;
+import me.oriley.homage.recyclerview.HomageExpandableView.AnimationMode;
+import me.oriley.homage.recyclerview.HomageView.ExtraInfoMode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that rebinding rows allocates nothing once each library has been formatted and its icon loaded, so scrolling
+ * doesn't cause garbage collection. The adapter is checked on its own with a fake row, then with each real row view.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class HomageAdapterAllocationTest {
+
+    private static final int LIBRARY_COUNT = 50;
+    private static final int BIND_COUNT = 10000;
+
+    private Context mContext;
+    private Homage mHomage;
+    private RecyclerView mRecyclerView;
+
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        int iconSize = mContext.getResources().getDimensionPixelSize(android.R.dimen.app_icon_size);
+        Bitmap icon = Bitmap.createBitmap(iconSize, iconSize, Bitmap.Config.ARGB_8888);
+
+        List<Library> libraries = new ArrayList<>(LIBRARY_COUNT);
+        for (int i = 0; i < LIBRARY_COUNT; i++) {
+            Library library = TestLibraries.create("Library " + i, "Owner " + i, "1.0");
+            // Icons come from both resources and URIs, already loaded as they would be after the first screen
+            if (i % 2 == 0) {
+                TestLibraries.setIconResource(library, android.R.drawable.sym_def_app_icon);
+            } else {
+                TestLibraries.setIconUri(library, "file:///icons/" + i + ".png");
+            }
+            IconLoader.get().putCached(library, iconSize, icon);
+            libraries.add(library);
+        }
+        mHomage = new Homage(mContext, new int[0]);
+        TestLibraries.setLibraries(mHomage, libraries);
+
+        mRecyclerView = new RecyclerView(mContext);
+    }
+
+
+    @Test
+    public void bindingDoesNotAllocate() {
+        HomageAdapter adapter = new HomageAdapter(mHomage, ExtraInfoMode.EXPANDABLE, true);
+        adapter.onAttachedToRecyclerView(mRecyclerView);
+        FakeRow row = new FakeRow();
+        assertBindingDoesNotAllocate(adapter, adapter.createHolder(new View(mContext), row));
+    }
+
+    @Test
+    public void bindingHomageViewsDoesNotAllocate() {
+        HomageAdapter adapter = new HomageAdapter(mHomage, ExtraInfoMode.EXPANDABLE, true);
+        adapter.onAttachedToRecyclerView(mRecyclerView);
+        assertBindingDoesNotAllocate(adapter, adapter.onCreateViewHolder(mRecyclerView, 0));
+    }
+
+    @Test
+    public void bindingHomageRowViewsDoesNotAllocate() {
+        HomageFlatAdapter adapter = new HomageFlatAdapter(mHomage, ExtraInfoMode.EXPANDABLE, true);
+        adapter.onAttachedToRecyclerView(mRecyclerView);
+        assertBindingDoesNotAllocate(adapter, adapter.onCreateViewHolder(mRecyclerView, 0));
+    }
+
+    @Test
+    public void bindingPopupHomageRowViewsDoesNotAllocate() {
+        HomageFlatAdapter adapter = new HomageFlatAdapter(mHomage, ExtraInfoMode.POPUP, true);
+        adapter.onAttachedToRecyclerView(mRecyclerView);
+        assertBindingDoesNotAllocate(adapter, adapter.onCreateViewHolder(mRecyclerView, 0));
+    }
+
+
+    private static void assertBindingDoesNotAllocate(@NonNull HomageListAdapterBase adapter,
+                                                     @NonNull HomageViewHolder holder) {
+        // The first bind of each library formats it, and later binds reuse that
+        bind(adapter, holder, LIBRARY_COUNT * 2);
+        HomageRow row = holder.getRow();
+        assertSame(adapter.getItem((LIBRARY_COUNT * 2 - 1) % LIBRARY_COUNT), row.getLibrary());
+        assertNotNull(row.getLibraryDisplay());
+
+        // Reading the allocation counter can allocate, so measure that on its own
+        long before = getAllocatedBytes();
+        long overhead = getAllocatedBytes() - before;
+
+        before = getAllocatedBytes();
+        bind(adapter, holder, BIND_COUNT);
+        long allocated = getAllocatedBytes() - before - overhead;
+
+        // Timings vary between machines, but allocations don't
+        if (before >= 0) {
+            assertEquals("Bytes allocated per bind", 0, allocated / BIND_COUNT);
+        }
+    }
+
+    private static void bind(@NonNull HomageListAdapterBase adapter, @NonNull HomageViewHolder holder, int count) {
+        for (int i = 0; i < count; i++) {
+            adapter.onBindViewHolder(holder, i % LIBRARY_COUNT);
+        }
+    }
+
+    /**
+     * @return bytes allocated by this thread so far, or -1 if the JVM can't tell
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+
+    private static final class FakeRow implements HomageRow {
+
+        @Nullable
+        private Library mLibrary;
+
+        @Nullable
+        private LibraryDisplay mDisplay;
+
+        private boolean mExpanded;
+
+
+        @Override
+        public void setLibrary(@Nullable Library library, @Nullable LibraryDisplay display) {
+            mLibrary = library;
+            mDisplay = display;
+        }
+
+        @Nullable
+        @Override
+        public Library getLibrary() {
+            return mLibrary;
+        }
+
+        @Nullable
+        @Override
+        public LibraryDisplay getLibraryDisplay() {
+            return mDisplay;
+        }
+
+        @Override
+        public void setExtraInfoMode(@NonNull ExtraInfoMode extraInfoMode) {
+        }
+
+        @Override
+        public void setShowIcons(boolean showIcons) {
+        }
+
+        @Override
+        public void setAnimationMode(@NonNull AnimationMode animationMode) {
+        }
+
+        @Override
+        public void showExtraInfo() {
+        }
+
+        @Override
+        public boolean isExpanded() {
+            return mExpanded;
+        }
+
+        @Override
+        public void setExpanded(boolean expanded) {
+            mExpanded = expanded;
+        }
+
+        @Override
+        public void setOnClickListener(@Nullable View.OnClickListener listener) {
+        }
+    }
+}
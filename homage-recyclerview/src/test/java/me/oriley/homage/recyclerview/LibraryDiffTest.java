@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homage.recyclerview;
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import me.oriley.homage.Library;
+import me.oriley.homage.TestLibraries;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that dispatching a diff turns the old list into the new one. Runs with Robolectric so adapter notifications
+ * reach the registered observer.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LibraryDiffTest {
+
+    private static final int RANDOM_RUNS = 500;
+
+
+    @Test
+    public void idsAreStableAcrossReloads() {
+        List<Library> first = createLibraries("OkHttp", "Retrofit", "Picasso");
+        List<Library> reloaded = createLibraries("Retrofit", "Picasso", "OkHttp");
+
+        long[] firstIds = LibraryDiff.computeIds(first);
+        long[] reloadedIds = LibraryDiff.computeIds(reloaded);
+        assertEquals(firstIds[0], reloadedIds[2]);
+        assertEquals(firstIds[1], reloadedIds[0]);
+        assertEquals(firstIds[2], reloadedIds[1]);
+    }
+
+    @Test
+    public void duplicateLibrariesHaveDistinctIds() {
+        List<Library> libraries = createLibraries("Homage", "Homage", "Homage", "Other");
+        long[] ids = LibraryDiff.computeIds(libraries);
+
+        Set<Long> unique = new HashSet<>();
+        for (long id : ids) {
+            assertNotEquals(RecyclerView.NO_ID, id);
+            unique.add(id);
+        }
+        assertEquals(ids.length, unique.size());
+        assertArrayEquals(ids, LibraryDiff.computeIds(createLibraries("Homage", "Homage", "Homage", "Other")));
+    }
+
+    @Test
+    public void dispatchesRemovalsInsertionsAndMoves() {
+        List<Library> oldLibraries = createLibraries("A", "B", "C", "D", "E", "F", "G", "H");
+        List<Library> newLibraries = new ArrayList<>(oldLibraries);
+        newLibraries.remove(1);
+        newLibraries.add(3, TestLibraries.create("I", "Owner", "1.0"));
+        Collections.swap(newLibraries, 4, 6);
+
+        ListObserver observer = dispatch(oldLibraries, newLibraries);
+        assertFalse(observer.mRefreshed);
+        assertTrue(observer.mChanged.isEmpty());
+    }
+
+    @Test
+    public void dispatchesChangedContents() {
+        List<Library> oldLibraries = createLibraries("A", "B", "C", "D");
+        List<Library> newLibraries = new ArrayList<>(oldLibraries);
+        newLibraries.set(2, TestLibraries.create("C", "Owner", "2.0"));
+        // Equal contents in a new instance aren't a change
+        newLibraries.set(3, TestLibraries.create("D", "Owner", "1.0"));
+
+        ListObserver observer = dispatch(oldLibraries, newLibraries);
+        assertFalse(observer.mRefreshed);
+        assertEquals(Collections.singleton(2), observer.mChanged);
+    }
+
+    @Test
+    public void refreshesWhenMostLibrariesChange() {
+        List<Library> oldLibraries = createLibraries("A", "B", "C", "D");
+        List<Library> newLibraries = new ArrayList<>(oldLibraries);
+        Collections.reverse(newLibraries);
+
+        assertTrue(dispatch(oldLibraries, newLibraries).mRefreshed);
+    }
+
+    @Test
+    public void randomUpdatesProduceNewOrder() {
+        Random random = new Random(42);
+        for (int run = 0; run < RANDOM_RUNS; run++) {
+            List<Library> oldLibraries = new ArrayList<>();
+            for (int i = 0, count = random.nextInt(30); i < count; i++) {
+                // Some duplicate names, to exercise IDs which depend on order
+                oldLibraries.add(TestLibraries.create("Library " + random.nextInt(40), "Owner", "1.0"));
+            }
+
+            List<Library> newLibraries = new ArrayList<>();
+            Set<Library> changed = new HashSet<>();
+            for (Library library : oldLibraries) {
+                int action = random.nextInt(10);
+                if (action == 0) {
+                    continue;
+                } else if (action == 1) {
+                    Library updated = TestLibraries.create(library.getLibraryName(), library.getLibraryOwner(), "2.0");
+                    changed.add(updated);
+                    newLibraries.add(updated);
+                } else {
+                    newLibraries.add(library);
+                }
+                if (random.nextInt(10) == 0) {
+                    newLibraries.add(TestLibraries.create("New " + random.nextInt(40), "Owner", "1.0"));
+                }
+            }
+            for (int i = 0, swaps = random.nextInt(3); i < swaps && newLibraries.size() > 1; i++) {
+                Collections.swap(newLibraries, random.nextInt(newLibraries.size()), random.nextInt(newLibraries.size()));
+            }
+
+            ListObserver observer = dispatch(oldLibraries, newLibraries);
+            if (!observer.mRefreshed) {
+                long[] oldIds = LibraryDiff.computeIds(oldLibraries);
+                long[] newIds = LibraryDiff.computeIds(newLibraries);
+                for (int i = 0; i < newIds.length; i++) {
+                    // Changed contents are only reported for libraries which were already shown
+                    boolean kept = contains(oldIds, newIds[i]);
+                    assertEquals(kept && changed.contains(newLibraries.get(i)), observer.mChanged.contains(i));
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Dispatches the diff between the lists, and checks the observed list of IDs matches the new list. Inserted
+     * libraries are checked by position, as the observer can't know their IDs unless the whole list was refreshed.
+     */
+    @NonNull
+    private static ListObserver dispatch(@NonNull List<Library> oldLibraries, @NonNull List<Library> newLibraries) {
+        long[] oldIds = LibraryDiff.computeIds(oldLibraries);
+        long[] newIds = LibraryDiff.computeIds(newLibraries);
+
+        TestAdapter adapter = new TestAdapter();
+        ListObserver observer = new ListObserver(oldIds, newIds);
+        adapter.registerAdapterDataObserver(observer);
+        LibraryDiff.calculate(oldLibraries, oldIds, newLibraries, newIds).dispatchTo(adapter);
+
+        assertEquals(newIds.length, observer.mIds.size());
+        for (int i = 0; i < newIds.length; i++) {
+            long expected = observer.mRefreshed || contains(oldIds, newIds[i]) ? newIds[i] : RecyclerView.NO_ID;
+            assertEquals("Position " + i, expected, (long) observer.mIds.get(i));
+        }
+        return observer;
+    }
+
+    private static boolean contains(@NonNull long[] ids, long id) {
+        for (long value : ids) {
+            if (value == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @NonNull
+    private static List<Library> createLibraries(@NonNull String... names) {
+        List<Library> libraries = new ArrayList<>(names.length);
+        for (String name : names) {
+            libraries.add(TestLibraries.create(name, "Owner", "1.0"));
+        }
+        return libraries;
+    }
+
+
+    /**
+     * Applies notifications to a list of IDs, with {@link RecyclerView#NO_ID} for inserted rows.
+     */
+    private static final class ListObserver extends RecyclerView.AdapterDataObserver {
+
+        @NonNull
+        private final List<Long> mIds = new ArrayList<>();
+
+        @NonNull
+        private final Set<Integer> mChanged = new HashSet<>();
+
+        @NonNull
+        private final long[] mNewIds;
+
+        private boolean mRefreshed;
+
+
+        ListObserver(@NonNull long[] oldIds, @NonNull long[] newIds) {
+            for (long id : oldIds) {
+                mIds.add(id);
+            }
+            mNewIds = newIds;
+        }
+
+
+        @Override
+        public void onChanged() {
+            // A full refresh rebinds everything from the new list
+            mRefreshed = true;
+            mIds.clear();
+            for (long id : mNewIds) {
+                mIds.add(id);
+            }
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            for (int i = 0; i < itemCount; i++) {
+                mChanged.add(positionStart + i);
+            }
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            for (int i = 0; i < itemCount; i++) {
+                mIds.add(positionStart, RecyclerView.NO_ID);
+            }
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            for (int i = 0; i < itemCount; i++) {
+                mIds.remove(positionStart);
+            }
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            assertEquals(1, itemCount);
+            mIds.add(toPosition, mIds.remove(fromPosition));
+        }
+    }
+
+    private static final class TestAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return 0;
+        }
+    }
+}
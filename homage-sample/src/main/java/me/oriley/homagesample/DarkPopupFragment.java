@@ -45,6 +45,9 @@ public final class DarkPopupFragment extends RecyclerViewFragment {
 
         // Adds a custom license definition to enable matching in your JSON list
         homage.addLicense("oriley", R.string.license_oriley_name, R.string.license_oriley_url, R.string.license_oriley_description);
+
+        // Generated by homage.gradle, avoids reflective icon lookups
+        homage.setIconResolver(new HomageIcons());
         homage.refreshLibraries();
 
         return new HomageInfiniteAdapter(homage, HomageView.ExtraInfoMode.POPUP, false, true);
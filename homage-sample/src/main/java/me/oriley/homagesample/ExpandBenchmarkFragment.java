@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homagesample;
+
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.design.widget.Snackbar;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.view.View;
+
+import me.oriley.homage.Homage;
+import me.oriley.homage.recyclerview.HomageAdapter;
+import me.oriley.homage.recyclerview.HomageExpandableView.AnimationMode;
+import me.oriley.homage.recyclerview.HomageView;
+
+/**
+ * Expands and collapses the first few rows in each {@link AnimationMode}, and compares the frame times of each mode.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ExpandBenchmarkFragment extends RecyclerViewFragment {
+
+    private static final String TAG = ExpandBenchmarkFragment.class.getSimpleName();
+
+    private static final int TOGGLED_ROWS = 4;
+    private static final int TOGGLES_PER_ROW = 4;
+
+    // Longer than the expand animation, so each toggle animates in full
+    private static final long TOGGLE_INTERVAL_MILLIS = 400;
+    private static final long SETTLE_MILLIS = 1000;
+
+    private static final AnimationMode[] MODES = AnimationMode.values();
+
+    @NonNull
+    private final Handler mHandler = new Handler();
+
+    @NonNull
+    private final StringBuilder mResults = new StringBuilder();
+
+    @Nullable
+    private HomageAdapter mAdapter;
+
+    @Nullable
+    private FrameTimeRecorder mRecorder;
+
+    private int mModeIndex;
+
+    private int mToggle;
+
+
+    @Override
+    public void onViewCreated(View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            Snackbar.make(view, R.string.expand_benchmark_unsupported, Snackbar.LENGTH_LONG).show();
+            return;
+        }
+
+        float refreshRate = getActivity().getWindowManager().getDefaultDisplay().getRefreshRate();
+        mRecorder = new FrameTimeRecorder(refreshRate);
+        mResults.setLength(0);
+        mModeIndex = 0;
+        startMode();
+    }
+
+    @NonNull
+    @Override
+    public RecyclerView.Adapter createAdapter() {
+        Homage homage = new Homage(getActivity(), R.raw.licenses_nextfaze, R.raw.licenses_oriley, R.raw.licenses_base);
+        homage.addLicense("oriley", R.string.license_oriley_name, R.string.license_oriley_url, R.string.license_oriley_description);
+        homage.setIconResolver(new HomageIcons());
+        homage.refreshLibraries();
+
+        mAdapter = new HomageAdapter(homage, HomageView.ExtraInfoMode.EXPANDABLE, true);
+        return mAdapter;
+    }
+
+    @NonNull
+    @Override
+    public RecyclerView.LayoutManager getLayoutManager() {
+        return new LinearLayoutManager(getActivity());
+    }
+
+    @Override
+    public void onDestroyView() {
+        mHandler.removeCallbacksAndMessages(null);
+        if (mRecorder != null) {
+            mRecorder.stop();
+        }
+        super.onDestroyView();
+    }
+
+    private void startMode() {
+        if (mAdapter == null) {
+            return;
+        }
+
+        // Rows take their mode when created, and the mode is part of their view type, so this replaces them all
+        mAdapter.setAnimationMode(MODES[mModeIndex]);
+        mAdapter.notifyDataSetChanged();
+        mRecyclerView.scrollToPosition(0);
+        mToggle = 0;
+        mHandler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                if (mRecorder != null) {
+                    mRecorder.start();
+                }
+                toggleNextRow();
+            }
+        }, SETTLE_MILLIS);
+    }
+
+    private void toggleNextRow() {
+        if (mToggle == TOGGLED_ROWS * TOGGLES_PER_ROW) {
+            mHandler.postDelayed(new Runnable() {
+                @Override
+                public void run() {
+                    finishMode();
+                }
+            }, TOGGLE_INTERVAL_MILLIS);
+            return;
+        }
+
+        RecyclerView.ViewHolder holder = mRecyclerView.findViewHolderForAdapterPosition(mToggle / TOGGLES_PER_ROW);
+        if (holder != null) {
+            // Clicks go through the adapter, as they would for a user
+            holder.itemView.performClick();
+        }
+        mToggle++;
+        mHandler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                toggleNextRow();
+            }
+        }, TOGGLE_INTERVAL_MILLIS);
+    }
+
+    private void finishMode() {
+        if (mRecorder == null) {
+            return;
+        }
+
+        mRecorder.stop();
+        if (mResults.length() > 0) {
+            mResults.append('\n');
+        }
+        mResults.append(MODES[mModeIndex]).append(": ").append(mRecorder.getSummary());
+
+        if (++mModeIndex < MODES.length) {
+            startMode();
+            return;
+        }
+
+        String results = mResults.toString();
+        Log.i(TAG, "Expand frame times\n" + results);
+        View view = getView();
+        if (view != null) {
+            Snackbar snackbar = Snackbar.make(view, results, Snackbar.LENGTH_INDEFINITE);
+            snackbar.setAction(R.string.expand_benchmark_again, new View.OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    mResults.setLength(0);
+                    mModeIndex = 0;
+                    startMode();
+                }
+            });
+            snackbar.show();
+        }
+    }
+}
@@ -32,6 +32,9 @@ public final class ExpandableCardFragment extends RecyclerViewFragment {
 
         // Adds a custom license definition to enable matching in your JSON list
         homage.addLicense("oriley", R.string.license_oriley_name, R.string.license_oriley_url, R.string.license_oriley_description);
+
+        // Generated by homage.gradle, avoids reflective icon lookups
+        homage.setIconResolver(new HomageIcons());
         homage.refreshLibraries();
 
         return new HomageInfiniteCardAdapter(homage, HomageView.ExtraInfoMode.EXPANDABLE, false);
@@ -32,9 +32,16 @@ public final class ExpandableCardIconFragment extends RecyclerViewFragment {
 
         // Adds a custom license definition to enable matching in your JSON list
         homage.addLicense("oriley", R.string.license_oriley_name, R.string.license_oriley_url, R.string.license_oriley_description);
+
+        // Generated by homage.gradle, avoids reflective icon lookups
+        homage.setIconResolver(new HomageIcons());
         homage.refreshLibraries();
 
-        return new HomageInfiniteCardAdapter(homage, HomageView.ExtraInfoMode.EXPANDABLE, true);
+        HomageInfiniteCardAdapter adapter = new HomageInfiniteCardAdapter(homage, HomageView.ExtraInfoMode.EXPANDABLE, true);
+
+        // Keeps a few rows inflated in the background for flinging through the infinite list
+        adapter.setAsyncInflation(4);
+        return adapter;
     }
 
     @NonNull
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2016 Kane O'Riley
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.oriley.homagesample;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.view.Choreographer;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Records the time between consecutive frames while running. A frame which misses its deadline shows up as an interval
+ * of two or more refresh periods.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+final class FrameTimeRecorder implements Choreographer.FrameCallback {
+
+    @NonNull
+    private final Choreographer mChoreographer = Choreographer.getInstance();
+
+    private final long mRefreshPeriodNanos;
+
+    @NonNull
+    private long[] mIntervals = new long[256];
+
+    private int mCount;
+
+    private long mLastFrameNanos;
+
+    private boolean mRunning;
+
+
+    FrameTimeRecorder(float refreshRate) {
+        mRefreshPeriodNanos = (long) (1e9 / refreshRate);
+    }
+
+
+    void start() {
+        mCount = 0;
+        mLastFrameNanos = 0;
+        mRunning = true;
+        mChoreographer.postFrameCallback(this);
+    }
+
+    void stop() {
+        mRunning = false;
+        mChoreographer.removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRunning) {
+            return;
+        }
+        if (mLastFrameNanos != 0) {
+            if (mCount == mIntervals.length) {
+                mIntervals = Arrays.copyOf(mIntervals, mCount * 2);
+            }
+            mIntervals[mCount++] = frameTimeNanos - mLastFrameNanos;
+        }
+        mLastFrameNanos = frameTimeNanos;
+        mChoreographer.postFrameCallback(this);
+    }
+
+    /**
+     * @return the median and 95th percentile frame times, and how many frames took longer than one and a half refresh
+     * periods
+     */
+    @NonNull
+    String getSummary() {
+        if (mCount == 0) {
+            return "no frames";
+        }
+
+        long[] sorted = Arrays.copyOf(mIntervals, mCount);
+        Arrays.sort(sorted);
+        int slow = 0;
+        for (long interval : sorted) {
+            if (interval * 2 > mRefreshPeriodNanos * 3) {
+                slow++;
+            }
+        }
+        return String.format(Locale.US, "%.1f ms median, %.1f ms 95th, %d/%d slow frames",
+                sorted[mCount / 2] / 1e6, sorted[(int) (mCount * 0.95)] / 1e6, slow, mCount);
+    }
+}
@@ -31,6 +31,8 @@ import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.Toolbar;
 import android.view.MenuItem;
 
+import me.oriley.homage.recyclerview.HomageViewPool;
+
 public class MainActivity extends AppCompatActivity
         implements NavigationView.OnNavigationItemSelectedListener {
 
@@ -50,6 +52,10 @@ public class MainActivity extends AppCompatActivity
     @NonNull
     private ActionBarDrawerToggle mToggle;
 
+    // Shared by every list so rows can be reused while switching between them
+    @NonNull
+    private final HomageViewPool mViewPool = new HomageViewPool();
+
     @IdRes
     private int mCurrentItem;
 
@@ -137,12 +143,20 @@ public class MainActivity extends AppCompatActivity
             case R.id.nav_dark_popup_no_card_no_icons:
                 openDrawerFragment(DarkPopupFragment.class, id);
                 break;
+            case R.id.nav_expand_benchmark:
+                openDrawerFragment(ExpandBenchmarkFragment.class, id);
+                break;
         }
 
         closeDrawer();
         return true;
     }
 
+    @NonNull
+    HomageViewPool getViewPool() {
+        return mViewPool;
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
@@ -69,6 +69,10 @@ abstract class RecyclerViewFragment extends Fragment {
             }
         }
 
+        if (getActivity() instanceof MainActivity) {
+            ((MainActivity) getActivity()).getViewPool().attach(mRecyclerView);
+        }
+
         mAdapter = createAdapter();
         mRecyclerView.setAdapter(mAdapter);
     }